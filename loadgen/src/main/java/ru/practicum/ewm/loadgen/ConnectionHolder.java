@@ -0,0 +1,224 @@
+package ru.practicum.ewm.loadgen;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Держит открытыми много keep-alive соединений с сервисом, пока идут сценарии: каждое соединение
+// раз в interval повторяет GET и ждет ответа. Все соединения обслуживает один поток на Selector,
+// поэтому число соединений ограничено только лимитом дескрипторов (ulimit -n) на обеих сторонах
+@Slf4j
+public class ConnectionHolder implements Closeable {
+
+    // соединений, открываемых за один проход цикла, чтобы не переполнять очередь accept сервера
+    private static final int CONNECT_BATCH = 500;
+    private static final long SELECT_TIMEOUT_MILLIS = 100;
+
+    private final InetSocketAddress address;
+    private final ByteBuffer request;
+    private final int connections;
+    private final long intervalNanos;
+    private final Selector selector;
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(64 * 1024);
+    private final AtomicInteger open = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder responses = new LongAdder();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    public ConnectionHolder(URI target, int connections, Duration interval) throws IOException {
+        int port = target.getPort() > 0 ? target.getPort() : 80;
+        String path = target.getRawPath() + (target.getRawQuery() != null ? "?" + target.getRawQuery() : "");
+        this.address = new InetSocketAddress(target.getHost(), port);
+        this.request = ByteBuffer.wrap(("GET " + path + " HTTP/1.1\r\nHost: " + target.getHost() + ":" + port
+                + "\r\nConnection: keep-alive\r\n\r\n").getBytes(StandardCharsets.US_ASCII)).asReadOnlyBuffer();
+        this.connections = connections;
+        this.intervalNanos = interval.toNanos();
+        this.selector = Selector.open();
+        this.thread = new Thread(this::run, "loadgen-connections");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    // Ждет, пока откроются все соединения; false - не дождались за timeout
+    public boolean awaitOpen(Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (open.get() + dropped.sum() < connections && System.nanoTime() < deadline) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(SELECT_TIMEOUT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return open.get() == connections;
+    }
+
+    public int open() {
+        return open.get();
+    }
+
+    // Соединения, которые не открылись или были закрыты сервером
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    public long responses() {
+        return responses.sum();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        int pending = connections;
+        try {
+            while (running) {
+                for (int i = 0; i < CONNECT_BATCH && pending > 0; i++, pending--) {
+                    connect();
+                }
+                selector.select(SELECT_TIMEOUT_MILLIS);
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    handle(key);
+                }
+                sendDue();
+            }
+        } catch (IOException e) {
+            log.error("Connection holder stopped", e);
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                closeQuietly(key);
+            }
+            closeQuietly(selector);
+        }
+    }
+
+    private void connect() {
+        try {
+            SocketChannel channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            SelectionKey key = channel.register(selector, SelectionKey.OP_CONNECT, new Connection());
+            if (channel.connect(address)) {
+                onConnected(key);
+            }
+        } catch (IOException e) {
+            dropped.increment();
+            log.debug("Connection to {} failed", address, e);
+        }
+    }
+
+    private void handle(SelectionKey key) {
+        if (!key.isValid()) {
+            return;
+        }
+        SocketChannel channel = (SocketChannel) key.channel();
+        Connection connection = (Connection) key.attachment();
+        try {
+            if (key.isConnectable() && channel.finishConnect()) {
+                onConnected(key);
+            } else if (key.isWritable()) {
+                channel.write(connection.out);
+                if (!connection.out.hasRemaining()) {
+                    key.interestOps(SelectionKey.OP_READ);
+                }
+            } else if (key.isReadable()) {
+                readBuffer.clear();
+                if (channel.read(readBuffer) < 0) {
+                    drop(key);
+                } else if (connection.waiting) {
+                    connection.waiting = false;
+                    responses.increment();
+                }
+            }
+        } catch (IOException e) {
+            drop(key);
+        }
+    }
+
+    private void onConnected(SelectionKey key) throws IOException {
+        open.incrementAndGet();
+        ((Connection) key.attachment()).connected = true;
+        key.interestOps(SelectionKey.OP_READ);
+        send(key, System.nanoTime());
+    }
+
+    private void sendDue() {
+        long now = System.nanoTime();
+        for (SelectionKey key : selector.keys()) {
+            Connection connection = (Connection) key.attachment();
+            if (key.isValid() && connection.connected && !connection.waiting && now >= connection.nextSendNanos) {
+                try {
+                    send(key, now);
+                } catch (IOException e) {
+                    drop(key);
+                }
+            }
+        }
+    }
+
+    private void send(SelectionKey key, long now) throws IOException {
+        Connection connection = (Connection) key.attachment();
+        connection.out = request.duplicate();
+        connection.waiting = true;
+        connection.nextSendNanos = now + intervalNanos;
+        ((SocketChannel) key.channel()).write(connection.out);
+        if (connection.out.hasRemaining()) {
+            key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+    }
+
+    private void drop(SelectionKey key) {
+        if (((Connection) key.attachment()).connected) {
+            open.decrementAndGet();
+        }
+        dropped.increment();
+        closeQuietly(key);
+    }
+
+    private static void closeQuietly(SelectionKey key) {
+        key.cancel();
+        closeQuietly(key.channel());
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            log.debug("Close failed", e);
+        }
+    }
+
+    private static class Connection {
+        private boolean connected;
+        private boolean waiting;
+        private long nextSendNanos;
+        private ByteBuffer out;
+    }
+}
@@ -0,0 +1,48 @@
+package ru.practicum.ewm.loadgen;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Задержки одного сценария в микросекундах и счётчики ответов
+public class EndpointStats {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final Recorder recorder = new Recorder(MAX_LATENCY_MICROS, 3);
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    public void record(long latencyNanos, int status) {
+        recorder.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), MAX_LATENCY_MICROS));
+        if (status / 100 != 2) {
+            failed.increment();
+        }
+    }
+
+    public void recordError(long latencyNanos) {
+        record(latencyNanos, 0);
+        errors.increment();
+    }
+
+    // Отбрасывает всё, что записано во время прогрева
+    public void reset() {
+        recorder.reset();
+        failed.reset();
+        errors.reset();
+    }
+
+    public Histogram histogram() {
+        return recorder.getIntervalHistogram();
+    }
+
+    public long failed() {
+        return failed.sum();
+    }
+
+    public long errors() {
+        return errors.sum();
+    }
+}
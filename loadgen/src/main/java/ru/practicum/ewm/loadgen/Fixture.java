@@ -0,0 +1,101 @@
+package ru.practicum.ewm.loadgen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import ru.practicum.ewm.utils.DateMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Тестовые данные, которые в коллекции Postman готовят pre-request скрипты
+@Slf4j
+public class Fixture {
+
+    public static final Set<String> VARIABLES = Set.of("uid", "eid", "commentId", "request_body", "ip");
+
+    private static final DateMapper DATE_MAPPER = new DateMapper();
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final String serviceUrl;
+    private final long[] userIds;
+    private final long[] eventIds;
+    private final ConcurrentLinkedQueue<Long> commentIds = new ConcurrentLinkedQueue<>();
+
+    public Fixture(HttpClient httpClient, ObjectMapper objectMapper, String serviceUrl, int users, int events)
+            throws IOException, InterruptedException {
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.serviceUrl = serviceUrl;
+        String run = Long.toString(System.currentTimeMillis(), 36);
+
+        userIds = new long[users];
+        for (int i = 0; i < users; i++) {
+            userIds[i] = post("/admin/users", Map.of("name", "loadgen " + run + " " + i,
+                    "email", "loadgen." + run + "." + i + "@example.com")).get("id").asLong();
+        }
+        long categoryId = post("/admin/categories", Map.of("name", "loadgen " + run)).get("id").asLong();
+
+        String eventDate = DATE_MAPPER.toString(Instant.now().plus(30, ChronoUnit.DAYS));
+        eventIds = new long[events];
+        for (int i = 0; i < events; i++) {
+            long initiator = userIds[i % users];
+            long eventId = post("/users/" + initiator + "/events", Map.of(
+                    "annotation", "Load generator event annotation " + i,
+                    "title", "Load generator " + i,
+                    "description", "Load generator event description " + i,
+                    "eventDate", eventDate,
+                    "category", categoryId,
+                    "location", Map.of("lat", 55.75, "lon", 37.61),
+                    "paid", false,
+                    "participantLimit", 0,
+                    "requestModeration", false)).get("id").asLong();
+            send("PATCH", "/admin/events/" + eventId, Map.of("stateAction", "PUBLISH_EVENT"));
+            eventIds[i] = eventId;
+            commentIds.add(post("/users/" + userIds[(i + 1) % users] + "/comments?eventId=" + eventId,
+                    Map.of("text", "Load generator comment " + i)).get("id").asLong());
+        }
+        log.info("Fixture created: users={}, events={}, comments={}", users, events, commentIds.size());
+    }
+
+    public String value(String variable) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return switch (variable) {
+            case "uid" -> Long.toString(userIds[random.nextInt(userIds.length)]);
+            case "eid" -> Long.toString(eventIds[random.nextInt(eventIds.length)]);
+            // Удалённый комментарий второй раз не удалить, после исчерпания запас даёт 404
+            case "commentId" -> String.valueOf(Objects.requireNonNullElse(commentIds.poll(), 0L));
+            case "request_body" -> "{\"text\":\"Load generator comment " + random.nextInt(1_000_000) + "\"}";
+            case "ip" -> "10." + random.nextInt(256) + "." + random.nextInt(256) + "." + random.nextInt(1, 255);
+            default -> throw new IllegalArgumentException("Unknown variable " + variable);
+        };
+    }
+
+    private JsonNode post(String path, Object body) throws IOException, InterruptedException {
+        return send("POST", path, body);
+    }
+
+    private JsonNode send(String method, String path, Object body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(serviceUrl + path))
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException(method + " " + path + " failed: " + response.statusCode() + " "
+                    + response.body());
+        }
+        return objectMapper.readTree(response.body());
+    }
+}
@@ -1,12 +1,12 @@
-package ru.practicum.ewm;
+package ru.practicum.ewm.loadgen;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
 
 @SpringBootApplication
-public class StatsServer {
+public class LoadGenerator {
 	public static void main(String[] args) {
-		SpringApplication.run(StatsServer.class, args);
+		System.exit(SpringApplication.exit(SpringApplication.run(LoadGenerator.class, args)));
 	}
 }
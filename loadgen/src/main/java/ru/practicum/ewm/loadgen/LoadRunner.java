@@ -0,0 +1,227 @@
+package ru.practicum.ewm.loadgen;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+@Slf4j
+@Component
+public class LoadRunner implements CommandLineRunner {
+
+    private final ObjectMapper objectMapper;
+    private final String serviceUrl;
+    private final String statsUrl;
+    private final String collection;
+    private final Set<String> selected;
+    private final int concurrency;
+    private final int rate;
+    private final long durationSeconds;
+    private final long warmupSeconds;
+    private final int users;
+    private final int events;
+    private final Path outputDir;
+    private final int connections;
+    private final String connectionsPath;
+    private final long connectionsIntervalSeconds;
+
+    public LoadRunner(
+            ObjectMapper objectMapper,
+            @Value("${loadgen.service-url}") String serviceUrl,
+            @Value("${loadgen.stats-url}") String statsUrl,
+            @Value("${loadgen.collection}") String collection,
+            @Value("${loadgen.scenarios}") Set<String> selected,
+            @Value("${loadgen.concurrency}") int concurrency,
+            @Value("${loadgen.rate}") int rate,
+            @Value("${loadgen.duration-seconds}") long durationSeconds,
+            @Value("${loadgen.warmup-seconds}") long warmupSeconds,
+            @Value("${loadgen.users}") int users,
+            @Value("${loadgen.events}") int events,
+            @Value("${loadgen.output-dir}") Path outputDir,
+            @Value("${loadgen.connections:0}") int connections,
+            @Value("${loadgen.connections-path:/categories}") String connectionsPath,
+            @Value("${loadgen.connections-interval-seconds:10}") long connectionsIntervalSeconds
+    ) {
+        this.objectMapper = objectMapper;
+        this.serviceUrl = serviceUrl;
+        this.statsUrl = statsUrl;
+        this.collection = collection;
+        this.selected = selected;
+        this.concurrency = concurrency;
+        this.rate = rate;
+        this.durationSeconds = durationSeconds;
+        this.warmupSeconds = warmupSeconds;
+        this.users = users;
+        this.events = events;
+        this.outputDir = outputDir;
+        this.connections = connections;
+        this.connectionsPath = connectionsPath;
+        this.connectionsIntervalSeconds = connectionsIntervalSeconds;
+    }
+
+    @Override
+    public void run(String... args) throws Exception {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(concurrency))
+                .build();
+        Fixture fixture = new Fixture(httpClient, objectMapper, serviceUrl, users, events);
+
+        Map<Scenario, EndpointStats> stats = new LinkedHashMap<>();
+        for (Scenario scenario : scenarios()) {
+            if (!selected.isEmpty() && !selected.contains(scenario.name())) {
+                continue;
+            }
+            if (!scenario.isResolvable(Fixture.VARIABLES)) {
+                log.warn("Scenario {} skipped: unknown variables in {} {}", scenario.name(), scenario.path(),
+                        scenario.body());
+                continue;
+            }
+            stats.put(scenario, new EndpointStats());
+        }
+        if (stats.isEmpty()) {
+            throw new IllegalArgumentException("No scenarios selected: " + selected);
+        }
+        ConnectionHolder holder = holdConnections();
+        log.info("Running {} scenarios: concurrency={}, rate={}/s, duration={}s, warmup={}s", stats.size(),
+                concurrency, rate, durationSeconds, warmupSeconds);
+
+        List<Scenario> order = new ArrayList<>(stats.keySet());
+        long startNanos = System.nanoTime();
+        long warmupEndNanos = startNanos + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long endNanos = warmupEndNanos + TimeUnit.SECONDS.toNanos(durationSeconds);
+        long intervalNanos = rate > 0 ? TimeUnit.SECONDS.toNanos(1) / rate : 0;
+        AtomicLong sequence = new AtomicLong();
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            workers.execute(() -> {
+                while (true) {
+                    long n = sequence.getAndIncrement();
+                    // При заданной частоте задержка считается от запланированного времени отправки,
+                    // иначе медленный ответ скрывает очередь запросов за ним (coordinated omission)
+                    long intendedNanos = rate > 0 ? startNanos + n * intervalNanos : System.nanoTime();
+                    if (intendedNanos >= endNanos) {
+                        return;
+                    }
+                    long waitNanos;
+                    while ((waitNanos = intendedNanos - System.nanoTime()) > 0) {
+                        LockSupport.parkNanos(waitNanos);
+                    }
+                    Scenario scenario = order.get((int) (n % order.size()));
+                    send(httpClient, fixture, scenario, stats.get(scenario), intendedNanos);
+                }
+            });
+        }
+
+        LockSupport.parkNanos(warmupEndNanos - System.nanoTime());
+        stats.values().forEach(EndpointStats::reset);
+        workers.shutdown();
+        workers.awaitTermination(durationSeconds + 60, TimeUnit.SECONDS);
+        report(stats, (System.nanoTime() - warmupEndNanos) / 1e9);
+        if (holder != null) {
+            log.info("Held connections: open={} of {}, dropped={}, responses={}", holder.open(), connections,
+                    holder.dropped(), holder.responses());
+            holder.close();
+        }
+    }
+
+    // loadgen.connections > 0: сценарии идут при открытых соединениях, например больше 10k для профиля virtual
+    private ConnectionHolder holdConnections() throws IOException {
+        if (connections <= 0) {
+            return null;
+        }
+        ConnectionHolder holder = new ConnectionHolder(URI.create(serviceUrl + connectionsPath), connections,
+                Duration.ofSeconds(connectionsIntervalSeconds));
+        holder.start();
+        if (!holder.awaitOpen(Duration.ofSeconds(60))) {
+            log.warn("Only {} of {} connections opened, dropped={}", holder.open(), connections, holder.dropped());
+        }
+        log.info("Holding {} connections to {}{}", holder.open(), serviceUrl, connectionsPath);
+        return holder;
+    }
+
+    private List<Scenario> scenarios() {
+        List<Scenario> scenarios = new ArrayList<>(Scenarios.builtIn(serviceUrl, statsUrl));
+        Path path = Path.of(collection);
+        if (Files.exists(path)) {
+            scenarios.addAll(Scenarios.fromPostman(path, serviceUrl, objectMapper));
+        } else {
+            log.warn("Postman collection {} not found, only built-in scenarios are used", path);
+        }
+        return scenarios;
+    }
+
+    private void send(HttpClient httpClient, Fixture fixture, Scenario scenario, EndpointStats stats,
+                      long intendedNanos) {
+        String body = scenario.resolveBody(fixture);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(scenario.baseUrl() + scenario.resolvePath(fixture)))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .method(scenario.method(), body != null
+                        ? HttpRequest.BodyPublishers.ofString(body)
+                        : HttpRequest.BodyPublishers.noBody())
+                .build();
+        try {
+            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            stats.record(System.nanoTime() - intendedNanos, response.statusCode());
+        } catch (IOException e) {
+            stats.recordError(System.nanoTime() - intendedNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void report(Map<Scenario, EndpointStats> stats, double seconds) throws IOException {
+        Files.createDirectories(outputDir);
+        StringBuilder table = new StringBuilder(String.format("%n%-60s %9s %9s %9s %9s %9s %9s %9s %9s %7s%n",
+                "scenario", "count", "rps", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "non-2xx",
+                "errors"));
+        long total = 0;
+        for (Map.Entry<Scenario, EndpointStats> entry : stats.entrySet()) {
+            Histogram histogram = entry.getValue().histogram();
+            total += histogram.getTotalCount();
+            table.append(String.format("%-60s %9d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %9d %7d%n",
+                    entry.getKey().name(), histogram.getTotalCount(), histogram.getTotalCount() / seconds,
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+                    millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue()), entry.getValue().failed(), entry.getValue().errors()));
+
+            String file = entry.getKey().name().replaceAll("[^\\w.-]+", "_") + ".hgrm";
+            try (PrintStream out = new PrintStream(Files.newOutputStream(outputDir.resolve(file)), true,
+                    StandardCharsets.UTF_8)) {
+                histogram.outputPercentileDistribution(out, 1000.0);
+            }
+        }
+        table.append(String.format("total: %d requests in %.1f s, %.1f rps", total, seconds, total / seconds));
+        log.info("{}", table);
+        log.info("Histograms written to {}", outputDir.toAbsolutePath());
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,40 @@
+package ru.practicum.ewm.loadgen;
+
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+// Один вид запроса; в path и body подставляются переменные вида {{uid}}
+public record Scenario(String name, String baseUrl, String method, String path, String body) {
+
+    private static final Pattern VARIABLE = Pattern.compile("\\{\\{(\\w+)}}");
+
+    public String resolvePath(Fixture fixture) {
+        return resolve(path, fixture);
+    }
+
+    public String resolveBody(Fixture fixture) {
+        return body != null ? resolve(body, fixture) : null;
+    }
+
+    public boolean isResolvable(Set<String> variables) {
+        return variables.containsAll(variables(path)) && (body == null || variables.containsAll(variables(body)));
+    }
+
+    private static Set<String> variables(String template) {
+        return VARIABLE.matcher(template).results()
+                .map(result -> result.group(1))
+                .collect(Collectors.toSet());
+    }
+
+    private static String resolve(String template, Fixture fixture) {
+        Matcher matcher = VARIABLE.matcher(template);
+        StringBuilder result = new StringBuilder();
+        while (matcher.find()) {
+            matcher.appendReplacement(result, Matcher.quoteReplacement(fixture.value(matcher.group(1))));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+}
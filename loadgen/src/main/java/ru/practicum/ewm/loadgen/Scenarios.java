@@ -0,0 +1,74 @@
+package ru.practicum.ewm.loadgen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+@Slf4j
+public final class Scenarios {
+
+    private static final Pattern EVENT_ID = Pattern.compile("eventId=\\d+");
+    private static final String STATS_WINDOW = "start=2000-01-01%2000:00:00&end=2100-01-01%2000:00:00";
+
+    private Scenarios() {
+    }
+
+    // Основные пути чтения и записи EventService, RequestService и StatsService
+    public static List<Scenario> builtIn(String serviceUrl, String statsUrl) {
+        return List.of(
+                new Scenario("GET /events", serviceUrl, "GET", "/events?sort=VIEWS&from=0&size=10", null),
+                new Scenario("GET /events/{id}", serviceUrl, "GET", "/events/{{eid}}", null),
+                new Scenario("GET /comments", serviceUrl, "GET", "/comments?eventId={{eid}}&from=0&size=10", null),
+                new Scenario("POST /users/{id}/requests", serviceUrl, "POST",
+                        "/users/{{uid}}/requests?eventId={{eid}}", null),
+                new Scenario("GET /users/{id}/requests", serviceUrl, "GET", "/users/{{uid}}/requests", null),
+                new Scenario("POST /hit", statsUrl, "POST", "/hit",
+                        "{\"app\":\"ewm-loadgen\",\"uri\":\"/events/{{eid}}\",\"ip\":\"{{ip}}\"}"),
+                new Scenario("GET /stats", statsUrl, "GET",
+                        "/stats?" + STATS_WINDOW + "&uris=/events/{{eid}}&unique=true", null)
+        );
+    }
+
+    // Запросы коллекции Postman; скрипты коллекции не выполняются, переменные берутся из Fixture
+    public static List<Scenario> fromPostman(Path collection, String serviceUrl, ObjectMapper objectMapper) {
+        List<Scenario> scenarios = new ArrayList<>();
+        try {
+            collect(objectMapper.readTree(collection.toFile()).path("item"), serviceUrl, scenarios);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read Postman collection " + collection, e);
+        }
+        return scenarios;
+    }
+
+    private static void collect(JsonNode items, String serviceUrl, List<Scenario> scenarios) {
+        for (JsonNode item : items) {
+            if (item.has("item")) {
+                collect(item.get("item"), serviceUrl, scenarios);
+                continue;
+            }
+            JsonNode request = item.path("request");
+            JsonNode url = request.path("url");
+            String path = url.path("raw").asText().replace("{{baseUrl}}", "");
+            for (JsonNode variable : url.path("variable")) {
+                path = path.replace(":" + variable.path("key").asText(), variable.path("value").asText());
+            }
+            // eventId в коллекции переопределяется скриптами, при воспроизведении берётся событие из Fixture
+            String template = EVENT_ID.matcher(path).replaceAll("eventId={{eid}}");
+            String method = request.path("method").asText();
+            JsonNode body = request.path("body").path("raw");
+            // Коллекция проверяет одни и те же запросы с разными данными, воспроизводим каждый запрос один раз
+            if (scenarios.stream().noneMatch(scenario -> scenario.method().equals(method)
+                    && scenario.path().equals(template))) {
+                scenarios.add(new Scenario("postman: " + method + " " + template, serviceUrl, method, template,
+                        body.isMissingNode() ? null : body.asText()));
+            }
+        }
+    }
+}
@@ -12,6 +12,9 @@ import static ru.practicum.ewm.event.dto.EventSort.VIEWS;
 
 @Data
 public class GetEventsRequest {
+
+    private static final DateMapper DATE_MAPPER = new DateMapper();
+
     private String text;
     private Set<Long> categories;
     private Boolean paid;
@@ -28,15 +31,14 @@ public class GetEventsRequest {
                             String rangeEnd, Boolean onlyAvailable, EventSort sort, Integer from,
                             Integer size, Set<EventState> states, Set<Long> users) {
 
-        DateMapper dateMapper = new DateMapper();
         LocalDateTime startDate = null;
         if (rangeStart != null) {
-            startDate = dateMapper.toLocalDateTime(rangeStart);
+            startDate = DATE_MAPPER.toLocalDateTime(rangeStart);
         }
 
         LocalDateTime endDate = null;
         if (rangeStart != null) {
-            endDate = dateMapper.toLocalDateTime(rangeEnd);
+            endDate = DATE_MAPPER.toLocalDateTime(rangeEnd);
         }
 
         if (startDate != null && endDate != null && !startDate.isBefore(endDate)) {
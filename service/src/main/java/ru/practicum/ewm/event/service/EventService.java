@@ -13,9 +13,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.ewm.category.model.Category;
 import ru.practicum.ewm.category.service.CategoryService;
-import ru.practicum.ewm.client.StatsClient;
-import ru.practicum.ewm.dto.GetStatsRequest;
-import ru.practicum.ewm.dto.ViewStatsDto;
 import ru.practicum.ewm.event.dto.EventFullDto;
 import ru.practicum.ewm.event.dto.EventShortDto;
 import ru.practicum.ewm.event.dto.GetEventsByInitiatorRequest;
@@ -38,15 +35,10 @@ import ru.practicum.ewm.user.model.User;
 import ru.practicum.ewm.user.service.UserService;
 import ru.practicum.ewm.utils.DateMapper;
 
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.time.Instant;
 import java.util.Comparator;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -63,7 +55,7 @@ public class EventService {
     private final UserService userService;
     private final CategoryService categoryService;
     private final DateMapper dateMapper;
-    private final StatsClient statsClient;
+    private final EventViewsCache eventViewsCache;
 
     @PersistenceContext
     private final EntityManager entityManager;
@@ -251,7 +243,7 @@ public class EventService {
         }
         List<RequestStatus> statuses = List.of(RequestStatus.CONFIRMED);
         Map<Long, Long> confirmedRequests = getCountConfirmedRequestByEvents(events, statuses);
-        Map<Long, Long> viewsByEvents = getCountViewsByEvents(events);
+        Map<Long, Long> viewsByEvents = eventViewsCache.getViews(events);
 
         Stream<EventShortDto> stream = events.stream()
                 .map(e -> {
@@ -275,7 +267,7 @@ public class EventService {
         }
         List<RequestStatus> statuses = List.of(RequestStatus.CONFIRMED);
         Map<Long, Long> confirmedRequests = getCountConfirmedRequestByEvents(events, statuses);
-        Map<Long, Long> viewsByEvents = getCountViewsByEvents(events);
+        Map<Long, Long> viewsByEvents = eventViewsCache.getViews(events);
 
         Stream<EventFullDto> stream = events.stream()
                 .map(e -> {
@@ -296,32 +288,6 @@ public class EventService {
                 .collect(Collectors.toMap(RequestCount::getEventId, RequestCount::getConfirmedRequests));
     }
 
-    private Map<Long, Long> getCountViewsByEvents(List<Event> events) {
-        if (events.isEmpty()) {
-            return new HashMap<>();
-        }
-        Instant minDate = events.get(0).getCreatedOn();
-        Set<String> uris = new HashSet<>();
-        for (Event event : events) {
-            if (event.getEventDate().isBefore(minDate)) {
-                minDate = event.getCreatedOn();
-            }
-            uris.add("/events/" + event.getId());
-        }
-        try {
-            List<ViewStatsDto> stats = statsClient.getStats(new GetStatsRequest(minDate, dateMapper.now(), uris, true));
-            return stats.stream().collect(Collectors.toMap(this::getIdFromUri, ViewStatsDto::getHits));
-        } catch (Exception e) {
-            log.error("Get stats error", e);
-            return Map.of();
-        }
-    }
-
-    private Long getIdFromUri(ViewStatsDto viewStatsDto) {
-        Path path = Paths.get(viewStatsDto.getUri());
-        return Long.valueOf(path.getFileName().toString());
-    }
-
     private Event getEventByIdAndInitiatorId(Long eventId, Long initiatorId) {
         User initiator = getUserById(initiatorId);
         return eventRepository.findByIdAndInitiator(eventId, initiator)
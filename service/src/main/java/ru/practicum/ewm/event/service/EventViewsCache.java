@@ -0,0 +1,164 @@
+package ru.practicum.ewm.event.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewm.client.StatsClient;
+import ru.practicum.ewm.dto.GetStatsRequest;
+import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.ewm.event.model.Event;
+import ru.practicum.ewm.utils.DateMapper;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+
+// Просмотры событий из stats-server. Запись свежая ttl секунд, затем до stale секунд отдаётся как есть,
+// а обновляется в фоне; отсутствующие и устаревшие события запрашиваются одним запросом /stats
+@Slf4j
+@Component
+public class EventViewsCache {
+
+    private static final String EVENTS_URI_PREFIX = "/events/";
+
+    private final StatsClient statsClient;
+    private final DateMapper dateMapper;
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final Cache<Long, CachedViews> cache;
+    private final Set<Long> refreshing = ConcurrentHashMap.newKeySet();
+    private final ExecutorService refreshExecutor;
+
+    public EventViewsCache(
+            StatsClient statsClient,
+            DateMapper dateMapper,
+            MeterRegistry meterRegistry,
+            @Value("${events.views.cache.enabled:false}") boolean enabled,
+            @Value("${events.views.cache.ttl-seconds:10}") long ttlSeconds,
+            @Value("${events.views.cache.stale-seconds:60}") long staleSeconds,
+            @Value("${events.views.cache.max-size:100000}") long maxSize
+    ) {
+        this.statsClient = statsClient;
+        this.dateMapper = dateMapper;
+        this.enabled = enabled;
+        this.ttlNanos = Duration.ofSeconds(ttlSeconds).toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(Math.max(ttlSeconds, staleSeconds)))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "events.views");
+        this.refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "event-views-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdown();
+    }
+
+    public Map<Long, Long> getViews(List<Event> events) {
+        if (events.isEmpty()) {
+            return new HashMap<>();
+        }
+        if (!enabled) {
+            Map<Long, Long> views = fetch(events);
+            return views != null ? views : new HashMap<>();
+        }
+        Map<Long, CachedViews> cached = cache.getAllPresent(events.stream().map(Event::getId).toList());
+        long now = System.nanoTime();
+        Map<Long, Long> views = new HashMap<>();
+        List<Event> missing = new ArrayList<>();
+        List<Event> stale = new ArrayList<>();
+        for (Event event : events) {
+            CachedViews entry = cached.get(event.getId());
+            if (entry == null) {
+                missing.add(event);
+                continue;
+            }
+            views.put(event.getId(), entry.views());
+            if (now - entry.loadedAt() > ttlNanos && refreshing.add(event.getId())) {
+                stale.add(event);
+            }
+        }
+        if (!missing.isEmpty()) {
+            views.putAll(load(missing));
+        }
+        if (!stale.isEmpty()) {
+            refresh(stale);
+        }
+        return views;
+    }
+
+    // После остановки пула обновление не выполняется, запросу отдаются закешированные значения
+    private void refresh(List<Event> stale) {
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    load(stale);
+                } finally {
+                    stale.forEach(event -> refreshing.remove(event.getId()));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            stale.forEach(event -> refreshing.remove(event.getId()));
+            log.debug("Event views refresh is rejected, executor is shut down");
+        }
+    }
+
+    // Запрашивает и кеширует просмотры; при ошибке stats-server ничего не кешируется
+    private Map<Long, Long> load(List<Event> events) {
+        long loadedAt = System.nanoTime();
+        Map<Long, Long> views = fetch(events);
+        if (views != null) {
+            events.forEach(event -> cache.put(event.getId(),
+                    new CachedViews(views.getOrDefault(event.getId(), 0L), loadedAt)));
+            return views;
+        }
+        return Map.of();
+    }
+
+    private Map<Long, Long> fetch(List<Event> events) {
+        Instant start = events.get(0).getCreatedOn();
+        Set<String> uris = new HashSet<>();
+        for (Event event : events) {
+            if (event.getCreatedOn().isBefore(start)) {
+                start = event.getCreatedOn();
+            }
+            uris.add(EVENTS_URI_PREFIX + event.getId());
+        }
+        try {
+            List<ViewStatsDto> stats = statsClient.getStats(new GetStatsRequest(start, dateMapper.now(), uris, true));
+            return stats.stream().collect(Collectors.toMap(this::getIdFromUri, ViewStatsDto::getHits));
+        } catch (Exception e) {
+            log.error("Get stats error", e);
+            return null;
+        }
+    }
+
+    private Long getIdFromUri(ViewStatsDto viewStatsDto) {
+        String uri = viewStatsDto.getUri();
+        return Long.valueOf(uri.substring(uri.lastIndexOf('/') + 1));
+    }
+
+    private record CachedViews(long views, long loadedAt) {
+    }
+}
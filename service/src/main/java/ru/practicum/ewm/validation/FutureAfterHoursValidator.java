@@ -8,6 +8,8 @@ import java.time.LocalDateTime;
 
 public class FutureAfterHoursValidator implements ConstraintValidator<FutureAfterHours, String> {
 
+    private static final DateMapper DATE_MAPPER = new DateMapper();
+
     private int hours;
 
     @Override
@@ -17,12 +19,11 @@ public class FutureAfterHoursValidator implements ConstraintValidator<FutureAfte
 
     @Override
     public boolean isValid(String dateString, ConstraintValidatorContext constraintValidatorContext) {
-        DateMapper mapper = new DateMapper();
-        LocalDateTime start = mapper.toLocalDateTime(dateString);
+        LocalDateTime start = DATE_MAPPER.toLocalDateTime(dateString);
         if (start == null) {
             return true;
         }
-        LocalDateTime current = mapper.nowLocalDateTime().plusHours(hours);
+        LocalDateTime current = DATE_MAPPER.nowLocalDateTime().plusHours(hours);
         return !current.isAfter(start);
     }
 }
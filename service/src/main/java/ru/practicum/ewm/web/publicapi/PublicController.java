@@ -110,7 +110,7 @@ public class PublicController {
                     request.getRequestURI(),
                     request.getRemoteAddr()
             );
-            statsClient.create(newEndpointHit);
+            statsClient.report(newEndpointHit);
         } catch (Exception e) {
             log.error("Send stats error", e);
         }
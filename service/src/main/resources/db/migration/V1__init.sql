@@ -1,17 +1,17 @@
-CREATE TABLE IF NOT EXISTS users (
+CREATE TABLE users (
   id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY NOT NULL,
   name VARCHAR NOT NULL,
   email VARCHAR NOT NULL,
   CONSTRAINT UQ_USER_EMAIL UNIQUE (email)
 );
 
-CREATE TABLE IF NOT EXISTS categories (
+CREATE TABLE categories (
     id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY NOT NULL,
     name VARCHAR NOT NULL,
     UNIQUE(name)
 );
 
-CREATE TABLE IF NOT EXISTS events (
+CREATE TABLE events (
    id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY NOT NULL,
    initiator_id BIGINT REFERENCES users (id) ON DELETE CASCADE,
    category_id BIGINT REFERENCES categories (id),
@@ -30,7 +30,7 @@ CREATE TABLE IF NOT EXISTS events (
    state VARCHAR
 );
 
-CREATE TABLE IF NOT EXISTS requests (
+CREATE TABLE requests (
    id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY NOT NULL,
    requester_id BIGINT REFERENCES users (id) ON DELETE CASCADE,
    event_id BIGINT REFERENCES events (id) ON DELETE CASCADE,
@@ -39,25 +39,24 @@ CREATE TABLE IF NOT EXISTS requests (
    UNIQUE(requester_id, event_id)
 );
 
-ALTER TABLE events DROP CONSTRAINT IF EXISTS fk_events_to_requests;
 ALTER TABLE events ADD CONSTRAINT fk_events_to_requests FOREIGN KEY(request_id) REFERENCES requests(id);
 
-CREATE TABLE IF NOT EXISTS compilations (
+CREATE TABLE compilations (
    id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY NOT NULL,
    title VARCHAR NOT NULL,
    pinned BOOLEAN NOT NULL
 );
 
-CREATE TABLE IF NOT EXISTS events_compilations (
+CREATE TABLE events_compilations (
     id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
     event_id BIGINT REFERENCES events (id) ON DELETE CASCADE NOT NULL,
     compilation_id BIGINT REFERENCES compilations (id) ON DELETE CASCADE NOT NULL
 );
 
-CREATE TABLE IF NOT EXISTS comments (
+CREATE TABLE comments (
   id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY NOT NULL,
   text VARCHAR NOT NULL,
   event_id BIGINT REFERENCES events (id) ON DELETE CASCADE NOT NULL,
   author_id BIGINT REFERENCES users (id) ON DELETE CASCADE NOT NULL,
   created TIMESTAMP
-);
\ No newline at end of file
+);
@@ -0,0 +1,12 @@
+-- публичный поиск событий: state = PUBLISHED и диапазон event_date
+CREATE INDEX events_state_event_date_idx ON events (state, event_date);
+CREATE INDEX events_initiator_id_idx ON events (initiator_id);
+CREATE INDEX events_category_id_idx ON events (category_id);
+
+-- подсчет подтвержденных заявок по событиям
+CREATE INDEX requests_event_id_status_idx ON requests (event_id, status);
+
+CREATE INDEX comments_event_id_created_idx ON comments (event_id, created);
+CREATE INDEX comments_author_id_idx ON comments (author_id);
+
+CREATE INDEX events_compilations_compilation_id_idx ON events_compilations (compilation_id);
@@ -0,0 +1,135 @@
+package ru.practicum.ewm;
+
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Планы основных запросов EventRepository, RequestRepository и CommentRepository на схеме из миграций.
+// Всегда проверяется H2; PostgreSQL - если задан -Dexplain.postgres.url (и .user, .password),
+// миграции применяются в отдельной схеме, которая удаляется после тестов
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class QueryPlanTests {
+
+    private static final String POSTGRES_SCHEMA = "query_plan_tests";
+
+    private final List<Database> databases = new ArrayList<>();
+
+    @BeforeAll
+    void migrate() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:query_plan_tests;DB_CLOSE_DELAY=-1");
+        Flyway.configure().dataSource(h2).locations("classpath:db/migration").load().migrate();
+        databases.add(new Database("h2", new JdbcTemplate(h2)));
+
+        String postgresUrl = System.getProperty("explain.postgres.url");
+        if (postgresUrl != null) {
+            SingleConnectionDataSource postgres = new SingleConnectionDataSource(postgresUrl,
+                    System.getProperty("explain.postgres.user", "service"),
+                    System.getProperty("explain.postgres.password", "service"), true);
+            Flyway.configure().dataSource(postgres).schemas(POSTGRES_SCHEMA).locations("classpath:db/migration")
+                    .load().migrate();
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(postgres);
+            jdbcTemplate.execute("set search_path to " + POSTGRES_SCHEMA);
+            // на пустых таблицах последовательное чтение всегда дешевле, проверяется применимость индекса
+            jdbcTemplate.execute("set enable_seqscan = off");
+            databases.add(new Database("postgresql", jdbcTemplate));
+        }
+    }
+
+    @AfterAll
+    void dropPostgresSchema() {
+        databases.stream()
+                .filter(database -> database.name().equals("postgresql"))
+                .forEach(database -> database.jdbcTemplate().execute("drop schema " + POSTGRES_SCHEMA + " cascade"));
+    }
+
+    List<Database> databases() {
+        return databases;
+    }
+
+    // публичный поиск событий
+    @ParameterizedTest
+    @MethodSource("databases")
+    void publishedEventsByDateUseStateEventDateIndex(Database database) {
+        assertUsesIndex(database, "select * from events " +
+                "where state = 'PUBLISHED' and event_date > timestamp '2024-01-01 00:00:00' " +
+                "order by event_date", "events_state_event_date_idx");
+    }
+
+    // EventRepository.findByInitiator
+    @ParameterizedTest
+    @MethodSource("databases")
+    void eventsByInitiatorUseInitiatorIndex(Database database) {
+        assertUsesIndex(database, "select * from events where initiator_id = 1 order by id limit 10",
+                "events_initiator_id_idx");
+    }
+
+    // RequestRepository.countRequestByEventsAndStatuses
+    @ParameterizedTest
+    @MethodSource("databases")
+    void requestCountsByEventsUseEventStatusIndex(Database database) {
+        assertUsesIndex(database, "select event_id, count(id) from requests " +
+                "where event_id in (1, 2, 3) and status in ('CONFIRMED') group by event_id",
+                "requests_event_id_status_idx");
+    }
+
+    // RequestRepository.countByEventAndStatus
+    @ParameterizedTest
+    @MethodSource("databases")
+    void requestCountByEventUsesEventStatusIndex(Database database) {
+        assertUsesIndex(database, "select count(id) from requests where event_id = 1 and status = 'CONFIRMED'",
+                "requests_event_id_status_idx");
+    }
+
+    // CommentRepository.findByEvent
+    @ParameterizedTest
+    @MethodSource("databases")
+    void commentsByEventUseEventCreatedIndex(Database database) {
+        assertUsesIndex(database, "select * from comments where event_id = 1 order by created desc limit 10",
+                "comments_event_id_created_idx");
+    }
+
+    // CommentRepository.findByAuthor
+    @ParameterizedTest
+    @MethodSource("databases")
+    void commentsByAuthorUseAuthorIndex(Database database) {
+        assertUsesIndex(database, "select * from comments where author_id = 1 limit 10",
+                "comments_author_id_idx");
+    }
+
+    // H2 сам индексирует внешние ключи и может выбрать такой индекс вместо созданного миграцией
+    private void assertUsesIndex(Database database, String sql, String index) {
+        String plan = explain(database, sql);
+        if (database.name().equals("h2")) {
+            assertThat(plan).containsAnyOf(index, "constraint_index").doesNotContain("tablescan");
+        } else {
+            assertThat(plan).contains(index);
+        }
+    }
+
+    private String explain(Database database, String sql) {
+        return database.jdbcTemplate().queryForList("explain " + sql, String.class).stream()
+                .collect(Collectors.joining("\n"))
+                .toLowerCase(Locale.ROOT);
+    }
+
+    record Database(String name, JdbcTemplate jdbcTemplate) {
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package ru.practicum.ewm.event.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.practicum.ewm.client.StatsClient;
+import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.ewm.event.model.Event;
+import ru.practicum.ewm.utils.DateMapper;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class EventViewsCacheTests {
+
+    private final StatsClient statsClient = mock(StatsClient.class);
+    // ttl 0: записи устаревают сразу и обновляются в фоне при каждом чтении
+    private final EventViewsCache cache = new EventViewsCache(statsClient, new DateMapper(),
+            new SimpleMeterRegistry(), true, 0, 60, 100);
+
+    @Test
+    void staleViewsAreReturnedAfterShutdown() {
+        ViewStatsDto viewStats = new ViewStatsDto();
+        viewStats.setUri("/events/1");
+        viewStats.setHits(5L);
+        when(statsClient.getStats(any())).thenReturn(List.of(viewStats));
+        List<Event> events = List.of(event(1L));
+        assertThat(cache.getViews(events)).isEqualTo(Map.of(1L, 5L));
+
+        cache.shutdown();
+
+        assertThat(cache.getViews(events)).isEqualTo(Map.of(1L, 5L));
+        assertThat(cache.getViews(events)).isEqualTo(Map.of(1L, 5L));
+        verify(statsClient, times(1)).getStats(any());
+    }
+
+    private Event event(long id) {
+        Event event = new Event();
+        event.setId(id);
+        event.setCreatedOn(Instant.now().minus(1, ChronoUnit.DAYS));
+        return event;
+    }
+}
@@ -1,5 +1,6 @@
 package ru.practicum.ewm.client;
 
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
@@ -14,95 +15,61 @@ import java.util.Map;
 
 public class BaseClient {
     protected final RestTemplate rest;
+    private final MediaType mediaType;
 
     public BaseClient(RestTemplate rest) {
-        this.rest = rest;
-    }
-
-    protected ResponseEntity<String> get(String path) {
-        return get(path, null);
-    }
-
-    protected ResponseEntity<String> get(String path, @Nullable Map<String, Object> parameters) {
-        return makeAndSendRequest(HttpMethod.GET, path, parameters, null);
-    }
-
-    protected <T> ResponseEntity<String> post(String path, T body) {
-        return post(path, null, body);
-    }
-
-    protected <T> ResponseEntity<String> post(String path, long userId, T body) {
-        return post(path, null, body);
-    }
-
-    protected <T> ResponseEntity<String> post(String path, @Nullable Map<String, Object> parameters, T body) {
-        return makeAndSendRequest(HttpMethod.POST, path, parameters, body);
+        this(rest, MediaType.APPLICATION_JSON);
     }
 
-    protected <T> ResponseEntity<String> put(String path, T body) {
-        return put(path, null, body);
-    }
-
-    protected <T> ResponseEntity<String> put(String path, @Nullable Map<String, Object> parameters, T body) {
-        return makeAndSendRequest(HttpMethod.PUT, path, parameters, body);
-    }
-
-    protected <T> ResponseEntity<String> patch(String path, T body) {
-        return patch(path, null, null, body);
-    }
-
-    protected <T> ResponseEntity<String> patch(String path, long userId) {
-        return patch(path, userId, null, null);
-    }
-
-    protected <T> ResponseEntity<String> patch(String path, long userId, T body) {
-        return patch(path, userId, null, body);
-    }
-
-    protected <T> ResponseEntity<String> patch(String path, Long userId, @Nullable Map<String, Object> parameters) {
-        return makeAndSendRequest(HttpMethod.PATCH, path, parameters, null);
+    public BaseClient(RestTemplate rest, MediaType mediaType) {
+        this.rest = rest;
+        this.mediaType = mediaType;
     }
 
-    protected <T> ResponseEntity<String> patch(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
-        return makeAndSendRequest(HttpMethod.PATCH, path, parameters, body);
+    protected <R> ResponseEntity<R> get(String path, ParameterizedTypeReference<R> responseType) {
+        return get(path, null, responseType);
     }
 
-    protected ResponseEntity<String> delete(String path) {
-        return delete(path, null, null);
+    protected <R> ResponseEntity<R> get(String path, @Nullable Map<String, Object> parameters,
+                                        ParameterizedTypeReference<R> responseType) {
+        return makeAndSendRequest(HttpMethod.GET, path, parameters, null, responseType);
     }
 
-    protected ResponseEntity<String> delete(String path, long userId) {
-        return delete(path, userId, null);
+    protected <T, R> ResponseEntity<R> post(String path, T body, ParameterizedTypeReference<R> responseType) {
+        return post(path, null, body, responseType);
     }
 
-    protected ResponseEntity<String> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
-        return makeAndSendRequest(HttpMethod.DELETE, path, parameters, null);
+    protected <T, R> ResponseEntity<R> post(String path, @Nullable Map<String, Object> parameters, T body,
+                                            ParameterizedTypeReference<R> responseType) {
+        return makeAndSendRequest(HttpMethod.POST, path, parameters, body, responseType);
     }
 
-    private <T> ResponseEntity<String> makeAndSendRequest(HttpMethod method, String path, @Nullable Map<String, Object> parameters, @Nullable T body) {
+    private <T, R> ResponseEntity<R> makeAndSendRequest(HttpMethod method, String path,
+                                                        @Nullable Map<String, Object> parameters, @Nullable T body,
+                                                        ParameterizedTypeReference<R> responseType) {
         HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders());
 
-        ResponseEntity<String> serverResponse;
+        ResponseEntity<R> serverResponse;
         try {
             if (parameters != null) {
-                serverResponse = rest.exchange(path, method, requestEntity, String.class, parameters);
+                serverResponse = rest.exchange(path, method, requestEntity, responseType, parameters);
             } else {
-                serverResponse = rest.exchange(path, method, requestEntity, String.class);
+                serverResponse = rest.exchange(path, method, requestEntity, responseType);
             }
         } catch (HttpStatusCodeException e) {
-            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsString());
+            return ResponseEntity.status(e.getStatusCode()).build();
         }
         return prepareGatewayResponse(serverResponse);
     }
 
     private HttpHeaders defaultHeaders() {
         HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+        headers.setContentType(mediaType);
+        headers.setAccept(List.of(mediaType));
         return headers;
     }
 
-    private static ResponseEntity<String> prepareGatewayResponse(ResponseEntity<String> response) {
+    private static <R> ResponseEntity<R> prepareGatewayResponse(ResponseEntity<R> response) {
         if (response.getStatusCode().is2xxSuccessful()) {
             return response;
         }
@@ -0,0 +1,118 @@
+package ru.practicum.ewm.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import ru.practicum.ewm.dto.NewEndpointHitRequestDto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+// Ограниченная неблокирующая очередь хитов; отдельный поток отправляет их пачками через /hits.
+// При переполнении хит отбрасывается: запрос пользователя не должен ждать stats-server
+@Slf4j
+public class HitBuffer implements HitQueue {
+
+    private final Queue<NewEndpointHitRequestDto> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final Consumer<List<NewEndpointHitRequestDto>> sender;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long shutdownTimeoutMillis;
+    private final Counter sent;
+    private final Counter dropped;
+    private final Counter failed;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    public HitBuffer(
+            Consumer<List<NewEndpointHitRequestDto>> sender,
+            MeterRegistry meterRegistry,
+            int capacity,
+            int batchSize,
+            long flushIntervalMillis,
+            long shutdownTimeoutMillis
+    ) {
+        this.sender = sender;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+        this.sent = meterRegistry.counter("stats.client.hits.sent");
+        this.dropped = meterRegistry.counter("stats.client.hits.dropped");
+        this.failed = meterRegistry.counter("stats.client.hits.failed");
+        Gauge.builder("stats.client.hits.queued", size, AtomicInteger::get).register(meterRegistry);
+        this.thread = new Thread(this::run, "stats-hit-sender");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    @Override
+    public boolean offer(NewEndpointHitRequestDto hit) {
+        int queued = size.incrementAndGet();
+        if (queued > capacity || !running) {
+            size.decrementAndGet();
+            dropped.increment();
+            return false;
+        }
+        queue.offer(hit);
+        if (queued == batchSize) {
+            LockSupport.unpark(thread);
+        }
+        return true;
+    }
+
+    // Отправляет накопленные хиты и останавливает поток; то, что не успело уйти за таймаут, теряется
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(shutdownTimeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (size.get() > 0) {
+            log.warn("Stats hit buffer closed, {} hits are not sent", size.get());
+        }
+    }
+
+    private void run() {
+        List<NewEndpointHitRequestDto> batch = new ArrayList<>(batchSize);
+        while (running || size.get() > 0) {
+            if (running && size.get() < batchSize) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+            NewEndpointHitRequestDto hit;
+            while ((hit = queue.poll()) != null) {
+                size.decrementAndGet();
+                batch.add(hit);
+                if (batch.size() == batchSize) {
+                    send(batch);
+                }
+            }
+            if (!batch.isEmpty()) {
+                send(batch);
+            }
+        }
+    }
+
+    private void send(List<NewEndpointHitRequestDto> batch) {
+        try {
+            sender.accept(batch);
+            sent.increment(batch.size());
+        } catch (Exception e) {
+            failed.increment(batch.size());
+            log.error("Send stats hits error, lost {} hits", batch.size(), e);
+        }
+        batch.clear();
+    }
+}
@@ -0,0 +1,18 @@
+package ru.practicum.ewm.client;
+
+import ru.practicum.ewm.dto.NewEndpointHitRequestDto;
+
+import java.util.List;
+
+// Итог отправки пачки хитов по узлам: хиты недоступных узлов и хиты, отклоненные узлом (400);
+// error - первая ошибка недоступного узла для лога
+record HitDelivery(
+        List<NewEndpointHitRequestDto> unavailable,
+        List<NewEndpointHitRequestDto> rejected,
+        RuntimeException error
+) {
+
+    static HitDelivery delivered() {
+        return new HitDelivery(List.of(), List.of(), null);
+    }
+}
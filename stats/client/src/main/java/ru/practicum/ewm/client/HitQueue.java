@@ -0,0 +1,12 @@
+package ru.practicum.ewm.client;
+
+import ru.practicum.ewm.dto.NewEndpointHitRequestDto;
+
+// Очередь хитов, которые отправляются на stats-server в фоне
+public interface HitQueue {
+
+    // false, если хит отброшен
+    boolean offer(NewEndpointHitRequestDto hit);
+
+    void close();
+}
@@ -0,0 +1,523 @@
+package ru.practicum.ewm.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import ru.practicum.ewm.dto.NewEndpointHitRequestDto;
+import ru.practicum.ewm.exception.InternalServerException;
+import ru.practicum.ewm.utils.TimestampCodec;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+// Журнал хитов на диске: сегменты фиксированного размера в отображаемых в память файлах только на дозапись.
+// Фоновый поток отправляет хиты по порядку и после каждой принятой пачки сбрасывает контрольную точку на диск,
+// поэтому хиты переживают недоступность stats-server и перезапуск сервиса (доставка "хотя бы один раз").
+// Если часть узлов не приняла пачку, повторяются только их хиты; пачка, отклоненная узлом (400),
+// досылается по одному хиту, а отклоненные хиты дописываются в файл rejected.tsv каталога журнала.
+// Следующий сегмент создается заранее вне монитора, разбор хитов при чтении тоже идет вне него.
+// Запись: длина (int), время в секундах (long), app, uri, ip в UTF-8 с длиной (short).
+// Длина пишется последней, недописанная при сбое запись читается как конец журнала.
+@Slf4j
+class HitSpool implements HitQueue {
+
+    static final String SUFFIX = ".spool";
+
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final String LOCK_FILE = "lock";
+    private static final String REJECTED_FILE = "rejected.tsv";
+    private static final int END_OF_SEGMENT = -1;
+    private static final int LENGTH_SIZE = Integer.BYTES;
+    private static final long MAX_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final Function<List<NewEndpointHitRequestDto>, HitDelivery> sender;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long shutdownTimeoutMillis;
+    private final Counter sent;
+    private final Counter dropped;
+    private final Counter failed;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private final FileChannel checkpointChannel;
+    private final MappedByteBuffer checkpoint;
+    // сегменты от читаемого до записываемого; изменяются под монитором спула
+    private final Deque<SpoolSegment> segments = new ArrayDeque<>();
+    // создание запасного сегмента; файл создается без монитора спула
+    private final Object spareLock = new Object();
+    private final Thread thread;
+    private volatile boolean running = true;
+    private int readPosition;
+    // следующий сегмент, созданный заранее; под монитором спула
+    private SpoolSegment spare;
+
+    HitSpool(
+            Function<List<NewEndpointHitRequestDto>, HitDelivery> sender,
+            MeterRegistry meterRegistry,
+            Path directory,
+            int segmentBytes,
+            long maxBytes,
+            int batchSize,
+            long flushIntervalMillis,
+            long shutdownTimeoutMillis
+    ) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = (int) Math.max(2, maxBytes / segmentBytes);
+        this.sender = sender;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+        this.sent = meterRegistry.counter("stats.client.hits.sent");
+        this.dropped = meterRegistry.counter("stats.client.hits.dropped");
+        this.failed = meterRegistry.counter("stats.client.hits.failed");
+
+        Files.createDirectories(directory);
+        this.lockChannel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        this.lock = lockChannel.tryLock();
+        if (lock == null) {
+            lockChannel.close();
+            throw new InternalServerException("Hit spool " + directory.toAbsolutePath()
+                    + " is used by another process");
+        }
+        this.checkpointChannel = FileChannel.open(directory.resolve(CHECKPOINT_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.checkpoint = checkpointChannel.map(FileChannel.MapMode.READ_WRITE, 0, Long.BYTES);
+        recover();
+        Gauge.builder("stats.client.hits.spooled", this, HitSpool::spooledBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.thread = new Thread(this::run, "stats-hit-shipper");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    @Override
+    public boolean offer(NewEndpointHitRequestDto hit) {
+        long timestamp = hit.getTimestamp() != null
+                ? TimestampCodec.parseEpochSecond(hit.getTimestamp())
+                : Instant.now().getEpochSecond();
+        byte[] app = hit.getApp().getBytes(StandardCharsets.UTF_8);
+        byte[] uri = hit.getUri().getBytes(StandardCharsets.UTF_8);
+        byte[] ip = hit.getIp().getBytes(StandardCharsets.UTF_8);
+        int length = Long.BYTES + 3 * Short.BYTES + app.length + uri.length + ip.length;
+        if (app.length > Short.MAX_VALUE || uri.length > Short.MAX_VALUE || ip.length > Short.MAX_VALUE
+                || LENGTH_SIZE + length + LENGTH_SIZE > segmentBytes - SpoolSegment.HEADER_SIZE) {
+            dropped.increment();
+            return false;
+        }
+        while (true) {
+            synchronized (this) {
+                SpoolSegment segment = segments.peekLast();
+                if (!running || segment == null) {
+                    dropped.increment();
+                    return false;
+                }
+                if (!fits(segment, length)) {
+                    if (segments.size() >= maxSegments) {
+                        dropped.increment();
+                        return false;
+                    }
+                    if (spare != null) {
+                        segment.buffer.putInt(segment.writePosition, END_OF_SEGMENT);
+                        segments.addLast(spare);
+                        segment = spare;
+                        spare = null;
+                    }
+                }
+                if (fits(segment, length)) {
+                    MappedByteBuffer buffer = segment.buffer;
+                    int position = segment.writePosition;
+                    int offset = position + LENGTH_SIZE;
+                    buffer.putLong(offset, timestamp);
+                    offset = putString(buffer, offset + Long.BYTES, app);
+                    offset = putString(buffer, offset, uri);
+                    putString(buffer, offset, ip);
+                    buffer.putInt(position, length);
+                    segment.writePosition = position + LENGTH_SIZE + length;
+                    return true;
+                }
+            }
+            // шиппер не успел подготовить сегмент: он создается здесь, но тоже вне монитора
+            if (!prepareSpare()) {
+                dropped.increment();
+                return false;
+            }
+        }
+    }
+
+    // Останавливает отправку; неотправленные хиты остаются на диске до следующего запуска
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(shutdownTimeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            try {
+                for (SpoolSegment segment : segments) {
+                    segment.close();
+                }
+                segments.clear();
+                if (spare != null) {
+                    spare.delete();
+                    spare = null;
+                }
+                checkpoint.force();
+                checkpointChannel.close();
+                lock.release();
+                lockChannel.close();
+            } catch (IOException e) {
+                log.error("Close hit spool error", e);
+            }
+        }
+        log.info("Hit spool closed, dir={}", directory.toAbsolutePath());
+    }
+
+    private void run() {
+        long backoffNanos = flushIntervalNanos;
+        boolean unavailable = false;
+        Batch batch = null;
+        // хиты текущей пачки, которые еще не приняты; после частичного сбоя повторяются только они
+        List<NewEndpointHitRequestDto> pending = null;
+        while (true) {
+            prepareSpare();
+            if (pending == null) {
+                batch = read();
+                if (batch.hits.isEmpty() || (running && batch.hits.size() < batchSize)) {
+                    if (!running) {
+                        return;
+                    }
+                    LockSupport.parkNanos(this, flushIntervalNanos);
+                    batch = read();
+                    if (batch.hits.isEmpty()) {
+                        continue;
+                    }
+                }
+                pending = batch.hits;
+            }
+            HitDelivery delivery = send(pending);
+            if (!delivery.unavailable().isEmpty()) {
+                if (!unavailable) {
+                    log.warn("Stats is unavailable, {} hits are kept in spool: {}", delivery.unavailable().size(),
+                            delivery.error() != null ? delivery.error().getMessage() : null);
+                    unavailable = true;
+                }
+                // при остановке неподтвержденная пачка остается в журнале и будет отправлена после перезапуска
+                if (!running) {
+                    return;
+                }
+                pending = delivery.unavailable();
+                LockSupport.parkNanos(this, backoffNanos);
+                backoffNanos = Math.min(backoffNanos * 2, MAX_BACKOFF_NANOS);
+                continue;
+            }
+            if (unavailable) {
+                log.info("Stats is available again, shipping spooled hits");
+                unavailable = false;
+            }
+            backoffNanos = flushIntervalNanos;
+            pending = null;
+            commit(batch);
+        }
+    }
+
+    // Отправляет хиты; в ответе - не доставленные из-за недоступности узлов и отклоненные узлами
+    private HitDelivery send(List<NewEndpointHitRequestDto> hits) {
+        HitDelivery delivery = deliver(hits);
+        List<NewEndpointHitRequestDto> unavailable = new ArrayList<>(delivery.unavailable());
+        RuntimeException error = delivery.error();
+        List<NewEndpointHitRequestDto> rejected = new ArrayList<>();
+        if (delivery.rejected().size() == 1) {
+            rejected.addAll(delivery.rejected());
+        } else {
+            // узел отклоняет пачку целиком, даже если не принят один хит, поэтому хиты досылаются по одному
+            for (NewEndpointHitRequestDto hit : delivery.rejected()) {
+                HitDelivery single = deliver(List.of(hit));
+                rejected.addAll(single.rejected());
+                unavailable.addAll(single.unavailable());
+                error = error == null ? single.error() : error;
+            }
+        }
+        if (!rejected.isEmpty()) {
+            reject(rejected);
+        }
+        sent.increment(hits.size() - unavailable.size() - rejected.size());
+        return new HitDelivery(unavailable, rejected, error);
+    }
+
+    private HitDelivery deliver(List<NewEndpointHitRequestDto> hits) {
+        try {
+            return sender.apply(hits);
+        } catch (RuntimeException e) {
+            return new HitDelivery(hits, List.of(), e);
+        }
+    }
+
+    // Хиты, которые сервер не принимает, повторять бесполезно: они сохраняются для разбора
+    private void reject(List<NewEndpointHitRequestDto> hits) {
+        failed.increment(hits.size());
+        StringBuilder lines = new StringBuilder();
+        for (NewEndpointHitRequestDto hit : hits) {
+            lines.append(hit.getTimestamp()).append('\t').append(hit.getApp()).append('\t')
+                    .append(hit.getUri()).append('\t').append(hit.getIp()).append('\n');
+        }
+        Path file = directory.resolve(REJECTED_FILE);
+        try {
+            Files.writeString(file, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+            log.error("Stats rejected {} spooled hits, written to {}", hits.size(), file.toAbsolutePath());
+        } catch (IOException e) {
+            log.error("Stats rejected {} spooled hits, could not write them to {}", hits.size(), file, e);
+        }
+    }
+
+    // Читает до batchSize хитов от контрольной точки, не сдвигая её. Под монитором берутся только границы
+    // записанных данных: байты до writePosition уже не меняются, поэтому разбор идет без монитора
+    private Batch read() {
+        List<SegmentRange> ranges = new ArrayList<>();
+        synchronized (this) {
+            int position = readPosition;
+            for (SpoolSegment segment : segments) {
+                ranges.add(new SegmentRange(segment, position, segment.writePosition));
+                position = SpoolSegment.HEADER_SIZE;
+            }
+        }
+        List<NewEndpointHitRequestDto> hits = new ArrayList<>();
+        for (int i = 0; i < ranges.size(); i++) {
+            SegmentRange range = ranges.get(i);
+            int position = range.from();
+            while (hits.size() < batchSize && position < range.to()) {
+                hits.add(readHit(range.segment().buffer, position));
+                position += LENGTH_SIZE + range.segment().buffer.getInt(position);
+            }
+            if (hits.size() == batchSize || position < range.to() || i == ranges.size() - 1) {
+                return new Batch(hits, range.segment().sequence, position);
+            }
+        }
+        return new Batch(hits, -1, readPosition);
+    }
+
+    // Сбрасывает на диск контрольную точку за отправленной пачкой и только затем удаляет прочитанные сегменты,
+    // поэтому контрольная точка не указывает на удаленный сегмент
+    private void commit(Batch batch) {
+        if (batch.sequence < 0) {
+            return;
+        }
+        checkpoint.putLong(0, ((long) batch.sequence << 32) | batch.position);
+        checkpoint.force();
+        List<SpoolSegment> consumed = new ArrayList<>();
+        synchronized (this) {
+            if (segments.isEmpty()) {
+                return;
+            }
+            while (segments.size() > 1 && segments.peekFirst().sequence < batch.sequence) {
+                consumed.add(segments.pollFirst());
+            }
+            readPosition = batch.position;
+        }
+        consumed.forEach(SpoolSegment::delete);
+    }
+
+    // Создает следующий сегмент заранее, чтобы запись не создавала файл под монитором; false - не удалось
+    private boolean prepareSpare() {
+        synchronized (spareLock) {
+            int sequence;
+            synchronized (this) {
+                if (spare != null) {
+                    return true;
+                }
+                if (!running || segments.isEmpty()) {
+                    return false;
+                }
+                // пока запасного сегмента нет, новые сегменты не добавляются, и номер последнего не меняется
+                sequence = segments.peekLast().sequence + 1;
+            }
+            SpoolSegment segment;
+            try {
+                segment = SpoolSegment.create(directory, sequence, segmentBytes);
+            } catch (IOException e) {
+                log.error("Could not create hit spool segment {}", sequence, e);
+                return false;
+            }
+            synchronized (this) {
+                if (running) {
+                    spare = segment;
+                    return true;
+                }
+            }
+            segment.delete();
+            return false;
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(file -> file.toString().endsWith(SUFFIX)).sorted().toList();
+        }
+        long value = checkpoint.getLong(0);
+        int checkpointSequence = (int) (value >>> 32);
+        int checkpointPosition = (int) value;
+        for (Path file : files) {
+            SpoolSegment segment = SpoolSegment.open(file);
+            if (segment.sequence < checkpointSequence) {
+                segment.delete();
+            } else {
+                segments.addLast(segment);
+            }
+        }
+        SpoolSegment first = segments.peekFirst();
+        if (first == null) {
+            first = SpoolSegment.create(directory, Math.max(checkpointSequence, 0), segmentBytes);
+            segments.addLast(first);
+            readPosition = SpoolSegment.HEADER_SIZE;
+            checkpoint.putLong(0, ((long) first.sequence << 32) | readPosition);
+            checkpoint.force();
+        } else if (first.sequence == checkpointSequence) {
+            readPosition = Math.max(SpoolSegment.HEADER_SIZE, Math.min(checkpointPosition, first.writePosition));
+        } else {
+            // сегмента контрольной точки нет (файл потерян или контрольная точка не записана):
+            // чтение с начала первого сегмента, уже отправленные хиты из него могут повториться
+            readPosition = SpoolSegment.HEADER_SIZE;
+            log.warn("Hit spool checkpoint segment {} not found, reading from segment {}", checkpointSequence,
+                    first.sequence);
+        }
+        log.info("Hit spool opened, dir={}, segments={}, pending bytes={}", directory.toAbsolutePath(),
+                segments.size(), spooledBytes());
+    }
+
+    // в сегменте всегда остаётся место под признак конца
+    private boolean fits(SpoolSegment segment, int length) {
+        return segment.writePosition + LENGTH_SIZE + length + LENGTH_SIZE <= segmentBytes;
+    }
+
+    private synchronized long spooledBytes() {
+        long bytes = 0;
+        int position = readPosition;
+        for (SpoolSegment segment : segments) {
+            bytes += Math.max(0, segment.writePosition - position);
+            position = SpoolSegment.HEADER_SIZE;
+        }
+        return bytes;
+    }
+
+    private static NewEndpointHitRequestDto readHit(MappedByteBuffer buffer, int position) {
+        int offset = position + LENGTH_SIZE;
+        long timestamp = buffer.getLong(offset);
+        offset += Long.BYTES;
+        String[] values = new String[3];
+        for (int i = 0; i < values.length; i++) {
+            int length = buffer.getShort(offset);
+            byte[] bytes = new byte[length];
+            buffer.get(offset + Short.BYTES, bytes);
+            values[i] = new String(bytes, StandardCharsets.UTF_8);
+            offset += Short.BYTES + length;
+        }
+        return new NewEndpointHitRequestDto(values[0], values[1], values[2], TimestampCodec.format(timestamp));
+    }
+
+    private static int putString(MappedByteBuffer buffer, int offset, byte[] value) {
+        buffer.putShort(offset, (short) value.length);
+        buffer.put(offset + Short.BYTES, value);
+        return offset + Short.BYTES + value.length;
+    }
+
+    private record Batch(List<NewEndpointHitRequestDto> hits, int sequence, int position) {
+    }
+
+    private record SegmentRange(SpoolSegment segment, int from, int to) {
+    }
+
+    // Файл сегмента: magic и номер сегмента, затем записи
+    private static final class SpoolSegment {
+
+        static final int HEADER_SIZE = 8;
+
+        private static final int MAGIC = 0x53504F4C;
+
+        final int sequence;
+        final Path path;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        // конец записанных данных; публикуется под монитором спула
+        int writePosition = HEADER_SIZE;
+
+        private SpoolSegment(int sequence, Path path, FileChannel channel, int size) throws IOException {
+            this.sequence = sequence;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+
+        static SpoolSegment create(Path directory, int sequence, int size) throws IOException {
+            Path path = directory.resolve(String.format("%010d%s", sequence, SUFFIX));
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            SpoolSegment segment = new SpoolSegment(sequence, path, channel, size);
+            segment.buffer.putInt(0, MAGIC);
+            segment.buffer.putInt(4, sequence);
+            return segment;
+        }
+
+        // Находит конец записанных данных: запись с нулевой длиной, признак конца или выход за файл
+        static SpoolSegment open(Path path) throws IOException {
+            String fileName = path.getFileName().toString();
+            int sequence = Integer.parseInt(fileName.substring(0, fileName.length() - SUFFIX.length()));
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            SpoolSegment segment = new SpoolSegment(sequence, path, channel, (int) channel.size());
+            if (segment.buffer.getInt(0) != MAGIC) {
+                channel.close();
+                throw new IOException("Not a hit spool segment: " + path);
+            }
+            int position = HEADER_SIZE;
+            int size = segment.buffer.capacity();
+            while (position + LENGTH_SIZE <= size) {
+                int length = segment.buffer.getInt(position);
+                if (length <= 0 || position + LENGTH_SIZE + length > size) {
+                    break;
+                }
+                position += LENGTH_SIZE + length;
+            }
+            segment.writePosition = position;
+            return segment;
+        }
+
+        void close() throws IOException {
+            buffer.force();
+            channel.close();
+        }
+
+        void delete() {
+            try {
+                channel.close();
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                log.error("Delete hit spool segment {} error", path, e);
+            }
+        }
+    }
+}
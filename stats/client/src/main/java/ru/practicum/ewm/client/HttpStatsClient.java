@@ -0,0 +1,388 @@
+package ru.practicum.ewm.client;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.classic.HttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+import ru.practicum.ewm.dto.EndpointHitDto;
+import ru.practicum.ewm.dto.GetStatsRequest;
+import ru.practicum.ewm.dto.NewEndpointHitRequestDto;
+import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.ewm.exception.BadRequestException;
+import ru.practicum.ewm.exception.InternalServerException;
+import ru.practicum.ewm.utils.DateMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+// Хиты распределяются по узлам stats-server консистентным хешированием uri,
+// запросы статистики рассылаются владельцам uri параллельно и результаты объединяются.
+// Уникальные просмотры uri берутся только с узла-владельца: множества ip разных узлов нельзя сложить.
+// Запрос unique=true без uri уходит на все узлы, и от каждого узла остаются только строки его uri;
+// хиты, записанные на прежнего владельца до смены состава кольца, в уникальных просмотрах не учитываются
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "stats-server.mode", havingValue = "http", matchIfMissing = true)
+public class HttpStatsClient implements StatsClient {
+    private static final String API_PREFIX = "";
+    private static final String FORMAT_CBOR = "cbor";
+
+    private final List<StatsNode> nodes;
+    private final ShardRing<StatsNode> ring;
+    private final Executor executor;
+    private final DateMapper dateMapper;
+    private final HitQueue hitQueue;
+    private final boolean coalescing;
+    // выполняющиеся запросы статистики по нормализованному запросу
+    private final Map<InFlightKey, CompletableFuture<List<ViewStatsDto>>> inFlight = new ConcurrentHashMap<>();
+    private final Counter collapsed;
+
+    @Autowired
+    public HttpStatsClient(
+            StatsClientProperties properties,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            RestTemplateBuilder builder,
+            Jackson2ObjectMapperBuilder objectMapperBuilder,
+            MeterRegistry meterRegistry,
+            DateMapper dateMapper
+    ) throws IOException {
+        if (properties.getUrl() == null || properties.getUrl().isBlank()) {
+            throw new IllegalStateException("stats-server.url is required in http mode");
+        }
+        MediaType mediaType = FORMAT_CBOR.equalsIgnoreCase(properties.getFormat())
+                ? MediaType.APPLICATION_CBOR : MediaType.APPLICATION_JSON;
+        MappingJackson2CborHttpMessageConverter cborConverter = new MappingJackson2CborHttpMessageConverter(
+                objectMapperBuilder.factory(new CBORFactory()).build());
+        int maxConnections = properties.getMaxConnections();
+        int maxGetUrisLength = properties.getQuery().getMaxGetUrisLength();
+        List<String> urls = Arrays.stream(properties.getUrl().split(","))
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .distinct()
+                .toList();
+        // пул соединений общий для всех узлов; по умолчанию HttpClient держит только 5 соединений на узел,
+        // чего не хватает при обработке запросов на виртуальных потоках
+        HttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                        .setMaxConnTotal(maxConnections * urls.size())
+                        .setMaxConnPerRoute(maxConnections)
+                        .build())
+                .build();
+        this.nodes = urls.stream()
+                .map(url -> new StatsNode(url, builder
+                        .uriTemplateHandler(new DefaultUriBuilderFactory(url + API_PREFIX))
+                        .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(httpClient))
+                        .additionalMessageConverters(cborConverter)
+                        .build(), mediaType, dateMapper, maxGetUrisLength))
+                .toList();
+        this.ring = new ShardRing<>(nodes, urls, properties.getVirtualNodes());
+        this.executor = nodes.size() > 1 ? scatterExecutor(virtualThreads) : null;
+        this.dateMapper = dateMapper;
+        this.coalescing = properties.getCoalescing().isEnabled();
+        this.collapsed = meterRegistry.counter("stats.client.stats.collapsed");
+        StatsClientProperties.Hits hits = properties.getHits();
+        StatsClientProperties.Spool spool = hits.getSpool();
+        if (!hits.isAsync()) {
+            this.hitQueue = null;
+        } else if (spool.isEnabled()) {
+            if (spool.getDir() == null || !Path.of(spool.getDir()).isAbsolute()) {
+                throw new IllegalStateException("stats-server.hits.spool.dir must be an absolute path, got "
+                        + spool.getDir());
+            }
+            this.hitQueue = new HitSpool(this::deliver, meterRegistry, Path.of(spool.getDir()),
+                    spool.getSegmentBytes(), spool.getMaxBytes(), hits.getBatchSize(), hits.getFlushIntervalMs(),
+                    hits.getShutdownTimeoutMs());
+        } else {
+            this.hitQueue = new HitBuffer(this::createAll, meterRegistry, hits.getBufferCapacity(),
+                    hits.getBatchSize(), hits.getFlushIntervalMs(), hits.getShutdownTimeoutMs());
+        }
+    }
+
+    // Запрос, совпадающий с выполняющимся по окну, unique и множеству uri, не отправляется и ждет его результата;
+    // запрос части uri так же ждет выполняющийся запрос всех uri того же окна и получает свою часть результата
+    @Override
+    public List<ViewStatsDto> getStats(GetStatsRequest request) {
+        if (!coalescing) {
+            return fetchStats(request);
+        }
+        InFlightKey key = InFlightKey.of(request);
+        CompletableFuture<List<ViewStatsDto>> all = request.getUris().isEmpty() ? null : inFlight.get(key.allUris());
+        if (all != null) {
+            collapsed.increment();
+            return join(all).stream()
+                    .filter(viewStats -> request.getUris().contains(viewStats.getUri()))
+                    .toList();
+        }
+        CompletableFuture<List<ViewStatsDto>> flight = new CompletableFuture<>();
+        CompletableFuture<List<ViewStatsDto>> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            collapsed.increment();
+            return join(running);
+        }
+        try {
+            List<ViewStatsDto> result = fetchStats(request);
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    // Несколько окон одним вызовом POST /stats/query на каждый узел; результаты в порядке окон
+    @Override
+    public List<List<ViewStatsDto>> query(List<GetStatsRequest> requests) {
+        if (nodes.size() == 1) {
+            return nodes.get(0).query(requests);
+        }
+        Map<StatsNode, List<GetStatsRequest>> windows = new LinkedHashMap<>();
+        Map<StatsNode, List<Integer>> indexes = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            GetStatsRequest request = requests.get(i);
+            Map<StatsNode, List<String>> urisByNode = new LinkedHashMap<>();
+            if (request.getUris().isEmpty()) {
+                nodes.forEach(node -> urisByNode.put(node, List.of()));
+            } else {
+                urisByNode.putAll(groupByOwner(List.copyOf(request.getUris()), uri -> uri));
+            }
+            for (Map.Entry<StatsNode, List<String>> entry : urisByNode.entrySet()) {
+                windows.computeIfAbsent(entry.getKey(), node -> new ArrayList<>()).add(new GetStatsRequest(
+                        request.getStart(), request.getEnd(), Set.copyOf(entry.getValue()), request.getUnique()));
+                indexes.computeIfAbsent(entry.getKey(), node -> new ArrayList<>()).add(i);
+            }
+        }
+        // результаты узлов идут подряд в порядке windows
+        List<List<ViewStatsDto>> results = scatter(windows, StatsNode::query);
+        List<Map<List<String>, Long>> counts = new ArrayList<>();
+        requests.forEach(request -> counts.add(new HashMap<>()));
+        int position = 0;
+        for (Map.Entry<StatsNode, List<Integer>> entry : indexes.entrySet()) {
+            for (Integer index : entry.getValue()) {
+                boolean unique = requests.get(index).getUnique();
+                results.get(position++).stream()
+                        .filter(viewStats -> !unique || ring.owner(viewStats.getUri()) == entry.getKey())
+                        .forEach(viewStats -> counts.get(index).merge(
+                                List.of(viewStats.getApp(), viewStats.getUri()), viewStats.getHits(), Long::sum));
+            }
+        }
+        return counts.stream()
+                .map(HttpStatsClient::toViewStats)
+                .toList();
+    }
+
+    private List<ViewStatsDto> fetchStats(GetStatsRequest request) {
+        if (nodes.size() == 1) {
+            return nodes.get(0).getStats(request);
+        }
+        Map<StatsNode, GetStatsRequest> requests = new LinkedHashMap<>();
+        if (request.getUris().isEmpty()) {
+            nodes.forEach(node -> requests.put(node, request));
+        } else {
+            groupByOwner(List.copyOf(request.getUris()), uri -> uri).forEach((node, uris) -> requests.put(node,
+                    new GetStatsRequest(request.getStart(), request.getEnd(), Set.copyOf(uris), request.getUnique())));
+        }
+        // просмотры uri, хиты которого попали на разные узлы при смене состава кольца, суммируются;
+        // уникальные просмотры берутся только с владельца uri
+        Map<List<String>, Long> counts = new HashMap<>();
+        scatter(requests, request.getUnique() ? this::getOwnedStats : StatsNode::getStats)
+                .forEach(viewStats -> counts.merge(
+                        List.of(viewStats.getApp(), viewStats.getUri()), viewStats.getHits(), Long::sum));
+        return toViewStats(counts);
+    }
+
+    private List<ViewStatsDto> getOwnedStats(StatsNode node, GetStatsRequest request) {
+        return node.getStats(request).stream()
+                .filter(viewStats -> ring.owner(viewStats.getUri()) == node)
+                .toList();
+    }
+
+    private static List<ViewStatsDto> toViewStats(Map<List<String>, Long> counts) {
+        return counts.entrySet().stream()
+                .map(entry -> {
+                    ViewStatsDto viewStats = new ViewStatsDto();
+                    viewStats.setApp(entry.getKey().get(0));
+                    viewStats.setUri(entry.getKey().get(1));
+                    viewStats.setHits(entry.getValue());
+                    return viewStats;
+                })
+                .sorted(Comparator.comparing(ViewStatsDto::getHits).reversed())
+                .toList();
+    }
+
+    @Override
+    public EndpointHitDto create(NewEndpointHitRequestDto request) {
+        return ring.owner(request.getUri()).create(request);
+    }
+
+    // Регистрирует просмотр без ожидания stats-server; время просмотра фиксируется в момент вызова
+    @Override
+    public void report(NewEndpointHitRequestDto request) {
+        if (hitQueue == null) {
+            create(request);
+            return;
+        }
+        if (request.getTimestamp() == null) {
+            request.setTimestamp(dateMapper.toString(dateMapper.now()));
+        }
+        hitQueue.offer(request);
+    }
+
+    @Override
+    public List<EndpointHitDto> createAll(List<NewEndpointHitRequestDto> requests) {
+        if (nodes.size() == 1) {
+            return nodes.get(0).createAll(requests);
+        }
+        // ответы узлов возвращаются на места своих хитов в исходном списке
+        Map<StatsNode, List<Integer>> indexes = groupByOwner(
+                IntStream.range(0, requests.size()).boxed().toList(), index -> requests.get(index).getUri());
+        Map<StatsNode, List<NewEndpointHitRequestDto>> batches = new LinkedHashMap<>();
+        indexes.forEach((node, nodeIndexes) -> batches.put(node, nodeIndexes.stream().map(requests::get).toList()));
+        List<EndpointHitDto> created = scatter(batches, StatsNode::createAll);
+        if (created.size() != requests.size()) {
+            throw new InternalServerException(String.format("Stats returned %d hits for %d requests",
+                    created.size(), requests.size()));
+        }
+        EndpointHitDto[] result = new EndpointHitDto[requests.size()];
+        int position = 0;
+        for (List<Integer> nodeIndexes : indexes.values()) {
+            for (Integer index : nodeIndexes) {
+                result[index] = created.get(position++);
+            }
+        }
+        return Arrays.asList(result);
+    }
+
+    // Для журнала хитов: каждый узел получает свою часть пачки, и ошибка одного узла не отменяет остальные,
+    // поэтому повторно отправляются только хиты узлов, которые их не приняли
+    HitDelivery deliver(List<NewEndpointHitRequestDto> requests) {
+        Map<StatsNode, List<NewEndpointHitRequestDto>> batches = nodes.size() == 1
+                ? Map.of(nodes.get(0), requests)
+                : groupByOwner(requests, NewEndpointHitRequestDto::getUri);
+        Map<StatsNode, CompletableFuture<List<EndpointHitDto>>> futures = new LinkedHashMap<>();
+        batches.forEach((node, batch) -> futures.put(node, submit(() -> node.createAll(batch))));
+        List<NewEndpointHitRequestDto> unavailable = new ArrayList<>();
+        List<NewEndpointHitRequestDto> rejected = new ArrayList<>();
+        RuntimeException error = null;
+        for (Map.Entry<StatsNode, CompletableFuture<List<EndpointHitDto>>> entry : futures.entrySet()) {
+            try {
+                join(entry.getValue());
+            } catch (BadRequestException e) {
+                rejected.addAll(batches.get(entry.getKey()));
+            } catch (RuntimeException e) {
+                unavailable.addAll(batches.get(entry.getKey()));
+                error = error == null ? e : error;
+            }
+        }
+        return new HitDelivery(unavailable, rejected, error);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (hitQueue != null) {
+            hitQueue.close();
+        }
+        if (executor instanceof ExecutorService executorService) {
+            executorService.shutdown();
+        }
+    }
+
+    private Executor scatterExecutor(boolean virtualThreads) {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor("stats-scatter-");
+            taskExecutor.setVirtualThreads(true);
+            return taskExecutor;
+        }
+        return Executors.newFixedThreadPool(nodes.size());
+    }
+
+    private <T> Map<StatsNode, List<T>> groupByOwner(List<T> items, Function<T, String> uri) {
+        Map<StatsNode, List<T>> groups = new LinkedHashMap<>();
+        for (T item : items) {
+            groups.computeIfAbsent(ring.owner(uri.apply(item)), node -> new ArrayList<>()).add(item);
+        }
+        return groups;
+    }
+
+    private <T, R> List<R> scatter(Map<StatsNode, T> requests, NodeCall<T, R> call) {
+        List<CompletableFuture<List<R>>> futures = requests.entrySet().stream()
+                .map(entry -> CompletableFuture.supplyAsync(() -> call.apply(entry.getKey(), entry.getValue()), executor))
+                .toList();
+        List<R> result = new ArrayList<>();
+        futures.forEach(future -> result.addAll(join(future)));
+        return result;
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> call) {
+        if (executor != null) {
+            return CompletableFuture.supplyAsync(call, executor);
+        }
+        try {
+            return CompletableFuture.completedFuture(call.get());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record InFlightKey(Instant start, Instant end, boolean unique, Set<String> uris) {
+
+        static InFlightKey of(GetStatsRequest request) {
+            return new InFlightKey(request.getStart(), request.getEnd(), request.getUnique(),
+                    Set.copyOf(request.getUris()));
+        }
+
+        InFlightKey allUris() {
+            return new InFlightKey(start, end, unique, Set.of());
+        }
+    }
+
+    @FunctionalInterface
+    private interface NodeCall<T, R> {
+        List<R> apply(StatsNode node, T request);
+    }
+}
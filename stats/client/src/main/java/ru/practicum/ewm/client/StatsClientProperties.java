@@ -0,0 +1,61 @@
+package ru.practicum.ewm.client;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+// Настройки HttpStatsClient: stats-server.*
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "stats-server")
+public class StatsClientProperties {
+    // адрес узла или несколько адресов через запятую
+    private String url;
+    // json или cbor - компактный двоичный формат запросов и ответов
+    private String format = "json";
+    // точек узла на кольце консистентного хеширования
+    private int virtualNodes = 128;
+    // соединений в пуле HTTP-клиента на один узел
+    private int maxConnections = 200;
+    private final Hits hits = new Hits();
+    private final Coalescing coalescing = new Coalescing();
+    private final Query query = new Query();
+
+    @Getter
+    @Setter
+    public static class Hits {
+        // хиты из report() копятся в буфере и отправляются пачками в фоне; иначе отправляются сразу
+        private boolean async = false;
+        private int bufferCapacity = 65536;
+        private int batchSize = 500;
+        private long flushIntervalMs = 200;
+        private long shutdownTimeoutMs = 5000;
+        private final Spool spool = new Spool();
+    }
+
+    // буфер - журнал на диске, переживающий недоступность stats-server; dir - абсолютный путь, обязателен
+    @Getter
+    @Setter
+    public static class Spool {
+        private boolean enabled = false;
+        private String dir;
+        private int segmentBytes = 16777216;
+        private long maxBytes = 1073741824;
+    }
+
+    // одновременные запросы статистики, покрываемые уже выполняющимся, ждут его
+    @Getter
+    @Setter
+    public static class Coalescing {
+        private boolean enabled = false;
+    }
+
+    @Getter
+    @Setter
+    public static class Query {
+        // длиннее - список uri отправляется в теле POST /stats/query
+        private int maxGetUrisLength = 2000;
+    }
+}
@@ -0,0 +1,99 @@
+package ru.practicum.ewm.client;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.tomcat.util.buf.StringUtils;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+import ru.practicum.ewm.dto.EndpointHitDto;
+import ru.practicum.ewm.dto.GetStatsRequest;
+import ru.practicum.ewm.dto.NewEndpointHitRequestDto;
+import ru.practicum.ewm.dto.StatsQueryRequestDto;
+import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.ewm.exception.BadRequestException;
+import ru.practicum.ewm.exception.InternalServerException;
+import ru.practicum.ewm.utils.DateMapper;
+
+import java.util.List;
+import java.util.Map;
+
+// Клиент одного узла stats-server
+@Slf4j
+class StatsNode extends BaseClient {
+
+    @Getter
+    private final String url;
+    private final DateMapper dateMapper;
+    private final int maxGetUrisLength;
+
+    StatsNode(String url, RestTemplate rest, MediaType mediaType, DateMapper dateMapper, int maxGetUrisLength) {
+        super(rest, mediaType);
+        this.url = url;
+        this.dateMapper = dateMapper;
+        this.maxGetUrisLength = maxGetUrisLength;
+    }
+
+    List<ViewStatsDto> getStats(GetStatsRequest request) {
+        // длинный список uri не помещается в URL, такой запрос отправляется в теле POST /stats/query
+        if (request.getUris().stream().mapToInt(uri -> uri.length() + 1).sum() > maxGetUrisLength) {
+            return query(List.of(request)).get(0);
+        }
+        String start = dateMapper.toString(request.getStart());
+        String end = dateMapper.toString(request.getEnd());
+
+        Map<String, Object> parameters = Map.of(
+                "start", start,
+                "end", end,
+                "uris", StringUtils.join(request.getUris(), ','),
+                "unique", request.getUnique()
+        );
+        StringBuilder stringBuilder = new StringBuilder();
+        stringBuilder.append("/stats?start={start}&end={end}");
+        if (!request.getUris().isEmpty()) {
+            stringBuilder.append("&uris={uris}");
+        }
+        stringBuilder.append("&unique={unique}");
+
+        ResponseEntity<List<ViewStatsDto>> response = get(stringBuilder.toString(), parameters,
+                new ParameterizedTypeReference<>() {});
+        return getResponseBody(response);
+    }
+
+    List<List<ViewStatsDto>> query(List<GetStatsRequest> requests) {
+        List<StatsQueryRequestDto> windows = requests.stream()
+                .map(request -> new StatsQueryRequestDto(
+                        dateMapper.toString(request.getStart()),
+                        dateMapper.toString(request.getEnd()),
+                        request.getUris(),
+                        request.getUnique()))
+                .toList();
+        return getResponseBody(post("/stats/query", windows,
+                new ParameterizedTypeReference<List<List<ViewStatsDto>>>() {}));
+    }
+
+    EndpointHitDto create(NewEndpointHitRequestDto request) {
+        return getResponseBody(post("/hit", request, new ParameterizedTypeReference<EndpointHitDto>() {}));
+    }
+
+    List<EndpointHitDto> createAll(List<NewEndpointHitRequestDto> requests) {
+        return getResponseBody(post("/hits", requests, new ParameterizedTypeReference<List<EndpointHitDto>>() {}));
+    }
+
+    private <T> T getResponseBody(ResponseEntity<T> response) {
+        if (response.getStatusCode().is4xxClientError() && response.getStatusCode() != HttpStatus.TOO_MANY_REQUESTS) {
+            String message = String.format("Stats %s rejected request with status code %s", url,
+                    response.getStatusCode());
+            log.error(message);
+            throw new BadRequestException(message);
+        }
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            String message = String.format("Stats %s returned wrong status code %s", url, response.getStatusCode());
+            log.error(message);
+            throw new InternalServerException(message);
+        }
+        return response.getBody();
+    }
+}
@@ -0,0 +1,117 @@
+package ru.practicum.ewm.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.practicum.ewm.dto.NewEndpointHitRequestDto;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+public class HitSpoolTests {
+
+    private static final int SEGMENT_BYTES = 1 << 16;
+
+    @TempDir
+    private Path directory;
+
+    private final List<List<String>> calls = new CopyOnWriteArrayList<>();
+    private final List<String> delivered = new CopyOnWriteArrayList<>();
+
+    @Test
+    void partialDeliveryResendsOnlyUndeliveredHits() throws IOException {
+        HitSpool spool = spool(hits -> {
+            // первая отправка: узел с uri /b недоступен
+            boolean first = calls.size() == 1;
+            List<NewEndpointHitRequestDto> unavailable = first
+                    ? hits.stream().filter(hit -> hit.getUri().equals("/b")).toList()
+                    : List.of();
+            hits.stream().filter(hit -> !unavailable.contains(hit)).forEach(hit -> delivered.add(hit.getUri()));
+            return new HitDelivery(unavailable, List.of(), first ? new IllegalStateException("down") : null);
+        }, 4, SEGMENT_BYTES);
+
+        List.of("/a", "/b", "/a", "/b").forEach(uri -> spool.offer(hit(uri)));
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> delivered.size() == 4);
+        spool.close();
+        assertThat(calls).containsExactly(List.of("/a", "/b", "/a", "/b"), List.of("/b", "/b"));
+        assertThat(delivered).containsExactly("/a", "/a", "/b", "/b");
+    }
+
+    @Test
+    void rejectedBatchIsRetriedPerHitAndWrittenToRejectedFile() throws IOException {
+        HitSpool spool = spool(hits -> {
+            if (hits.stream().anyMatch(hit -> hit.getUri().equals("/bad"))) {
+                return new HitDelivery(List.of(), hits, null);
+            }
+            hits.forEach(hit -> delivered.add(hit.getUri()));
+            return HitDelivery.delivered();
+        }, 3, SEGMENT_BYTES);
+
+        List.of("/a", "/bad", "/c").forEach(uri -> spool.offer(hit(uri)));
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> calls.size() == 4);
+        spool.close();
+        assertThat(calls).containsExactly(List.of("/a", "/bad", "/c"), List.of("/a"), List.of("/bad"), List.of("/c"));
+        assertThat(delivered).containsExactly("/a", "/c");
+        assertThat(Files.readAllLines(directory.resolve("rejected.tsv")))
+                .singleElement()
+                .satisfies(line -> assertThat(line).endsWith("\tapp\t/bad\t10.0.0.1"));
+    }
+
+    @Test
+    void restartResumesFromCheckpoint() throws IOException {
+        HitSpool first = spool(this::deliverAll, 10, SEGMENT_BYTES);
+        List.of("/a", "/b", "/c").forEach(uri -> first.offer(hit(uri)));
+        await().atMost(Duration.ofSeconds(10)).until(() -> delivered.size() == 3);
+        first.close();
+
+        HitSpool second = spool(this::deliverAll, 10, SEGMENT_BYTES);
+        second.offer(hit("/d"));
+        await().atMost(Duration.ofSeconds(10)).until(() -> delivered.size() == 4);
+        second.close();
+
+        assertThat(delivered).containsExactly("/a", "/b", "/c", "/d");
+    }
+
+    @Test
+    void hitsSpanningSegmentsAreDeliveredInOrder() throws IOException {
+        HitSpool spool = spool(this::deliverAll, 7, 256);
+        List<String> uris = IntStream.range(0, 100).mapToObj(i -> "/events/" + i).toList();
+
+        uris.forEach(uri -> assertThat(spool.offer(hit(uri))).isTrue());
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> delivered.size() == uris.size());
+        spool.close();
+        assertThat(delivered).containsExactlyElementsOf(uris);
+        try (var files = Files.list(directory)) {
+            assertThat(files.filter(file -> file.toString().endsWith(HitSpool.SUFFIX)).count()).isLessThanOrEqualTo(2);
+        }
+    }
+
+    private HitDelivery deliverAll(List<NewEndpointHitRequestDto> hits) {
+        hits.forEach(hit -> delivered.add(hit.getUri()));
+        return HitDelivery.delivered();
+    }
+
+    private HitSpool spool(Function<List<NewEndpointHitRequestDto>, HitDelivery> sender, int batchSize,
+                           int segmentBytes) throws IOException {
+        return new HitSpool(hits -> {
+            calls.add(hits.stream().map(NewEndpointHitRequestDto::getUri).toList());
+            return sender.apply(hits);
+        }, new SimpleMeterRegistry(), directory, segmentBytes, 64L * segmentBytes, batchSize, 10, 5000);
+    }
+
+    private static NewEndpointHitRequestDto hit(String uri) {
+        return new NewEndpointHitRequestDto("app", uri, "10.0.0.1");
+    }
+}
@@ -0,0 +1,265 @@
+package ru.practicum.ewm.client;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import ru.practicum.ewm.dto.EndpointHitDto;
+import ru.practicum.ewm.dto.GetStatsRequest;
+import ru.practicum.ewm.dto.NewEndpointHitRequestDto;
+import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.ewm.utils.DateMapper;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Несколько узлов stats-server - HTTP-серверы JDK, отвечающие заготовленными данными
+public class HttpStatsClientTests {
+
+    private static final int NODES = 3;
+    private static final int VIRTUAL_NODES = 128;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<FakeNode> nodes = new ArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ShardRing<FakeNode> ring;
+    private HttpStatsClient client;
+
+    @BeforeEach
+    void startNodes() throws IOException {
+        for (int i = 0; i < NODES; i++) {
+            nodes.add(new FakeNode(i));
+        }
+        List<String> urls = nodes.stream().map(FakeNode::url).toList();
+        ring = new ShardRing<>(nodes, urls, VIRTUAL_NODES);
+        client = client(false);
+    }
+
+    @AfterEach
+    void stopNodes() {
+        client.shutdown();
+        nodes.forEach(node -> node.server.stop(0));
+    }
+
+    @Test
+    void createAllKeepsRequestOrderAcrossNodes() {
+        List<NewEndpointHitRequestDto> requests = IntStream.range(0, 50)
+                .mapToObj(i -> new NewEndpointHitRequestDto("app", "/events/" + i, "10.0.0." + i))
+                .toList();
+
+        List<EndpointHitDto> created = client.createAll(requests);
+
+        assertThat(created).extracting(EndpointHitDto::getUri)
+                .containsExactlyElementsOf(requests.stream().map(NewEndpointHitRequestDto::getUri).toList());
+        assertThat(created).extracting(EndpointHitDto::getIp)
+                .containsExactlyElementsOf(requests.stream().map(NewEndpointHitRequestDto::getIp).toList());
+        for (FakeNode node : nodes) {
+            assertThat(node.hits).isNotEmpty().allSatisfy(uri -> assertThat(ring.owner(uri)).isSameAs(node));
+        }
+    }
+
+    @Test
+    void deliverReturnsOnlyHitsOfUnavailableNode() {
+        FakeNode down = nodes.get(0);
+        down.server.stop(0);
+        List<NewEndpointHitRequestDto> requests = IntStream.range(0, 30)
+                .mapToObj(i -> new NewEndpointHitRequestDto("app", "/events/" + i, "10.0.0." + i))
+                .toList();
+
+        HitDelivery delivery = client.deliver(requests);
+
+        assertThat(delivery.unavailable()).isNotEmpty()
+                .allSatisfy(hit -> assertThat(ring.owner(hit.getUri())).isSameAs(down));
+        assertThat(delivery.rejected()).isEmpty();
+        assertThat(delivery.unavailable().size() + nodes.get(1).hits.size() + nodes.get(2).hits.size())
+                .isEqualTo(requests.size());
+    }
+
+    @Test
+    void statsWithUrisAreSentOnlyToOwners() {
+        Set<String> uris = Set.of("/events/1", "/events/2", "/events/3", "/events/4", "/events/5");
+
+        client.getStats(new GetStatsRequest(Instant.EPOCH, Instant.now(), uris, false));
+
+        List<String> requested = new ArrayList<>();
+        for (FakeNode node : nodes) {
+            node.statsUris.forEach(uri -> assertThat(ring.owner(uri)).isSameAs(node));
+            requested.addAll(node.statsUris);
+        }
+        assertThat(requested).containsExactlyInAnyOrderElementsOf(uris);
+    }
+
+    @Test
+    void uniqueStatsWithoutUrisTakeOnlyOwnerCounts() {
+        String uri = "/events/1";
+        nodes.forEach(node -> node.stats = List.of(viewStats(uri, 10L + node.index)));
+        FakeNode owner = ring.owner(uri);
+
+        List<ViewStatsDto> unique = client.getStats(new GetStatsRequest(Instant.EPOCH, Instant.now(), Set.of(), true));
+        List<ViewStatsDto> all = client.getStats(new GetStatsRequest(Instant.EPOCH, Instant.now(), Set.of(), false));
+
+        assertThat(unique).extracting(ViewStatsDto::getHits).containsExactly(10L + owner.index);
+        assertThat(all).extracting(ViewStatsDto::getHits).containsExactly(10L * NODES + 3);
+    }
+
+    @Test
+    void concurrentStatsRequestsShareOneCall() throws Exception {
+        HttpStatsClient coalescing = client(true);
+        nodes.forEach(node -> {
+            node.stats = List.of(viewStats("/events/1", 1L), viewStats("/events/2", 2L));
+            node.gate = new CountDownLatch(1);
+        });
+        Instant end = Instant.now();
+        ExecutorService callers = Executors.newFixedThreadPool(21);
+        try {
+            Future<List<ViewStatsDto>> leader = callers.submit(() ->
+                    coalescing.getStats(new GetStatsRequest(Instant.EPOCH, end, Set.of(), false)));
+            awaitUntil(() -> nodes.stream().allMatch(node -> node.statsCalls.get() == 1));
+            List<Future<List<ViewStatsDto>>> same = new ArrayList<>();
+            List<Future<List<ViewStatsDto>>> part = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                same.add(callers.submit(() ->
+                        coalescing.getStats(new GetStatsRequest(Instant.EPOCH, end, Set.of(), false))));
+                part.add(callers.submit(() ->
+                        coalescing.getStats(new GetStatsRequest(Instant.EPOCH, end, Set.of("/events/2"), false))));
+            }
+            awaitUntil(() -> meterRegistry.counter("stats.client.stats.collapsed").count() == 20);
+            nodes.forEach(node -> node.gate.countDown());
+
+            List<ViewStatsDto> all = leader.get(5, TimeUnit.SECONDS);
+            assertThat(all).extracting(ViewStatsDto::getHits).containsExactly(2L * NODES, (long) NODES);
+            for (Future<List<ViewStatsDto>> result : same) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo(all);
+            }
+            for (Future<List<ViewStatsDto>> result : part) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).extracting(ViewStatsDto::getUri)
+                        .containsExactly("/events/2");
+            }
+            assertThat(nodes).allSatisfy(node -> assertThat(node.statsCalls).hasValue(1));
+        } finally {
+            callers.shutdownNow();
+            coalescing.shutdown();
+        }
+    }
+
+    private HttpStatsClient client(boolean coalescing) throws IOException {
+        StatsClientProperties properties = new StatsClientProperties();
+        properties.setUrl(String.join(",", nodes.stream().map(FakeNode::url).toList()));
+        properties.setVirtualNodes(VIRTUAL_NODES);
+        properties.getHits().setAsync(false);
+        properties.getCoalescing().setEnabled(coalescing);
+        // как у собранного Spring Boot RestTemplateBuilder: JSON-конвертер уже зарегистрирован
+        RestTemplateBuilder builder = new RestTemplateBuilder()
+                .messageConverters(new MappingJackson2HttpMessageConverter());
+        return new HttpStatsClient(properties, false, builder, Jackson2ObjectMapperBuilder.json(),
+                meterRegistry, new DateMapper());
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in 5 seconds").isLessThan(deadline);
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+
+    private static ViewStatsDto viewStats(String uri, long hits) {
+        ViewStatsDto viewStats = new ViewStatsDto();
+        viewStats.setApp("app");
+        viewStats.setUri(uri);
+        viewStats.setHits(hits);
+        return viewStats;
+    }
+
+    private class FakeNode {
+        private final int index;
+        private final HttpServer server;
+        private final List<String> hits = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> statsUris = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger statsCalls = new AtomicInteger();
+        private volatile List<ViewStatsDto> stats = List.of();
+        // пока закрыт, ответ на /stats задерживается
+        private volatile CountDownLatch gate = new CountDownLatch(0);
+
+        FakeNode(int index) throws IOException {
+            this.index = index;
+            this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/hits", this::createAll);
+            server.createContext("/stats", this::getStats);
+            server.start();
+        }
+
+        String url() {
+            return "http://127.0.0.1:" + server.getAddress().getPort();
+        }
+
+        private void createAll(HttpExchange exchange) throws IOException {
+            List<NewEndpointHitRequestDto> requests = objectMapper.readValue(exchange.getRequestBody(),
+                    new TypeReference<>() {
+                    });
+            List<EndpointHitDto> created = new ArrayList<>();
+            for (NewEndpointHitRequestDto request : requests) {
+                hits.add(request.getUri());
+                EndpointHitDto hit = new EndpointHitDto();
+                hit.setId((long) index * 1000 + created.size());
+                hit.setApp(request.getApp());
+                hit.setUri(request.getUri());
+                hit.setIp(request.getIp());
+                created.add(hit);
+            }
+            respond(exchange, 201, created);
+        }
+
+        private void getStats(HttpExchange exchange) throws IOException {
+            statsCalls.incrementAndGet();
+            try {
+                gate.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            Map<String, String> parameters = new ConcurrentHashMap<>();
+            for (String parameter : exchange.getRequestURI().getRawQuery().split("&")) {
+                String[] pair = parameter.split("=", 2);
+                parameters.put(pair[0], URLDecoder.decode(pair[1], StandardCharsets.UTF_8));
+            }
+            if (parameters.containsKey("uris")) {
+                statsUris.addAll(List.of(parameters.get("uris").split(",")));
+            }
+            respond(exchange, 200, stats);
+        }
+
+        private void respond(HttpExchange exchange, int status, Object body) throws IOException {
+            byte[] bytes = objectMapper.writeValueAsBytes(body);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, bytes.length);
+            exchange.getResponseBody().write(bytes);
+            exchange.close();
+        }
+    }
+}
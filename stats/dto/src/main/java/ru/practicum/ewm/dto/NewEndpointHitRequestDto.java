@@ -3,8 +3,10 @@ package ru.practicum.ewm.dto;
 import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
+@NoArgsConstructor
 @AllArgsConstructor
 public class NewEndpointHitRequestDto {
     @NotBlank
@@ -13,4 +15,10 @@ public class NewEndpointHitRequestDto {
     private String uri;
     @NotBlank
     private String ip;
+    // Время просмотра "yyyy-MM-dd HH:mm:ss"; задаётся клиентом при отложенной отправке, иначе время приёма
+    private String timestamp;
+
+    public NewEndpointHitRequestDto(String app, String uri, String ip) {
+        this(app, uri, ip, null);
+    }
 }
@@ -0,0 +1,22 @@
+package ru.practicum.ewm.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.HashSet;
+import java.util.Set;
+
+// Одно окно запроса POST /stats/query; параметры те же, что у GET /stats
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatsQueryRequestDto {
+    @NotBlank
+    private String start;
+    @NotBlank
+    private String end;
+    private Set<String> uris = new HashSet<>();
+    private Boolean unique = false;
+}
@@ -4,52 +4,42 @@ import org.springframework.stereotype.Component;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.TimeZone;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
 
 @Component
 public class DateMapper {
 
-    private static final String PATTERN = "yyyy-MM-dd HH:mm:ss";
-
-    private static final ZoneId ZONE = TimeZone.getTimeZone("UTC").toZoneId();
-    DateTimeFormatter formatter = DateTimeFormatter.ofPattern(PATTERN)
-            .withZone(ZONE);
-
     public String toString(Instant date) {
-        return date != null ? formatter.format(date) : null;
+        return date != null ? TimestampCodec.format(date.getEpochSecond()) : null;
     }
 
     public Instant toInstant(String stringDate) {
         if (stringDate == null) {
             return null;
         }
-        ZonedDateTime localDateTime = LocalDateTime.parse(stringDate, formatter).atZone(ZONE);
-        return localDateTime.toInstant();
+        return Instant.ofEpochSecond(TimestampCodec.parseEpochSecond(stringDate));
     }
 
     public LocalDateTime toLocalDateTime(String stringDate) {
         if (stringDate == null) {
             return null;
         }
-        ZonedDateTime localDateTime = LocalDateTime.parse(stringDate, formatter).atZone(ZONE);
-        return localDateTime.toLocalDateTime();
+        return LocalDateTime.ofEpochSecond(TimestampCodec.parseEpochSecond(stringDate), 0, ZoneOffset.UTC);
     }
 
     public Instant toInstant(LocalDateTime date) {
         if (date == null) {
             return null;
         }
-        return date.atZone(ZONE).toInstant();
+        return date.toInstant(ZoneOffset.UTC);
     }
 
     public Instant now() {
-        return toInstant(toString(LocalDateTime.now().atZone(ZONE).toInstant()));
+        return Instant.now().truncatedTo(ChronoUnit.SECONDS);
     }
 
     public LocalDateTime nowLocalDateTime() {
-        return toLocalDateTime(toString(LocalDateTime.now().atZone(ZONE).toInstant()));
+        return LocalDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.SECONDS);
     }
-}
\ No newline at end of file
+}
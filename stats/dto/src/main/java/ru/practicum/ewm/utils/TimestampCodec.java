@@ -0,0 +1,132 @@
+package ru.practicum.ewm.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeParseException;
+
+// Кодек "yyyy-MM-dd HH:mm:ss" в UTC фиксированной ширины: разбор и запись без промежуточных объектов
+public final class TimestampCodec {
+
+    public static final int LENGTH = 19;
+
+    private static final long SECONDS_PER_DAY = 86400;
+    private static final String PATTERN = "yyyy-MM-dd HH:mm:ss";
+    private static final long MIN_EPOCH_SECOND = -62135596800L; // 0001-01-01 00:00:00
+    private static final long MAX_EPOCH_SECOND = 253402300799L; // 9999-12-31 23:59:59
+
+    // последняя отформатированная секунда: хиты и ответы в пределах одной секунды получают готовую строку
+    private static volatile Formatted last = new Formatted(Long.MIN_VALUE, "");
+
+    private TimestampCodec() {
+    }
+
+    public static long parseEpochSecond(CharSequence text) {
+        if (text.length() != LENGTH) {
+            throw new DateTimeParseException("Text '" + text + "' does not match " + PATTERN, text, 0);
+        }
+        int year = digits(text, 0, 4);
+        expect(text, 4, '-');
+        int month = digits(text, 5, 2);
+        expect(text, 7, '-');
+        int day = digits(text, 8, 2);
+        expect(text, 10, ' ');
+        int hour = digits(text, 11, 2);
+        expect(text, 13, ':');
+        int minute = digits(text, 14, 2);
+        expect(text, 16, ':');
+        int second = digits(text, 17, 2);
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)
+                || hour > 23 || minute > 59 || second > 59) {
+            throw new DateTimeParseException("Text '" + text + "' is not a valid date-time", text, 0);
+        }
+        return daysFromCivil(year, month, day) * SECONDS_PER_DAY + hour * 3600L + minute * 60L + second;
+    }
+
+    // Без аллокаций для повторной секунды; для новой - строка и буфер под нее
+    public static String format(long epochSecond) {
+        Formatted cached = last;
+        if (cached.epochSecond() == epochSecond) {
+            return cached.text();
+        }
+        byte[] buffer = new byte[LENGTH];
+        formatTo(epochSecond, buffer, 0);
+        String text = new String(buffer, StandardCharsets.ISO_8859_1);
+        last = new Formatted(epochSecond, text);
+        return text;
+    }
+
+    // Пишет ровно LENGTH ASCII-символов в dst начиная с offset
+    public static void formatTo(long epochSecond, byte[] dst, int offset) {
+        if (epochSecond < MIN_EPOCH_SECOND || epochSecond > MAX_EPOCH_SECOND) {
+            throw new IllegalArgumentException("Epoch second out of range: " + epochSecond);
+        }
+        long days = Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+        int secondOfDay = (int) Math.floorMod(epochSecond, SECONDS_PER_DAY);
+        // алгоритм civil_from_days: эра из 400 лет, год начинается с марта
+        long z = days + 719468;
+        long era = Math.floorDiv(z, 146097);
+        int dayOfEra = (int) (z - era * 146097);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int mp = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        int year = (int) (yearOfEra + era * 400) + (month <= 2 ? 1 : 0);
+
+        write(dst, offset, year, 4);
+        dst[offset + 4] = '-';
+        write(dst, offset + 5, month, 2);
+        dst[offset + 7] = '-';
+        write(dst, offset + 8, day, 2);
+        dst[offset + 10] = ' ';
+        write(dst, offset + 11, secondOfDay / 3600, 2);
+        dst[offset + 13] = ':';
+        write(dst, offset + 14, secondOfDay / 60 % 60, 2);
+        dst[offset + 16] = ':';
+        write(dst, offset + 17, secondOfDay % 60, 2);
+    }
+
+    private static long daysFromCivil(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    private static int digits(CharSequence text, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new DateTimeParseException("Text '" + text + "' could not be parsed at index " + i, text, i);
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static void expect(CharSequence text, int index, char separator) {
+        if (text.charAt(index) != separator) {
+            throw new DateTimeParseException("Text '" + text + "' could not be parsed at index " + index, text, index);
+        }
+    }
+
+    private static void write(byte[] dst, int offset, int value, int count) {
+        for (int i = offset + count - 1; i >= offset; i--) {
+            dst[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private record Formatted(long epochSecond, String text) {
+    }
+}
@@ -0,0 +1,71 @@
+package ru.practicum.ewm.utils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Пишет в лог и в метрику jvm.threads.virtual.pinned события JFR jdk.VirtualThreadPinned:
+// виртуальный поток заблокировался, не отпустив поток-носитель (synchronized, native)
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int STACK_DEPTH = 8;
+    private static final int MIN_JAVA_VERSION = 21;
+
+    private final Counter pinned;
+    private final Duration threshold;
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(
+            MeterRegistry meterRegistry,
+            @Value("${diagnostics.pinned-threshold-ms:20}") long thresholdMillis
+    ) {
+        // на Java 17 Spring Boot молча оставляет платформенные потоки, профиль должен падать явно
+        if (Runtime.version().feature() < MIN_JAVA_VERSION) {
+            throw new IllegalStateException(String.format(
+                    "spring.threads.virtual.enabled=true requires Java %d+, running on Java %s",
+                    MIN_JAVA_VERSION, Runtime.version()));
+        }
+        this.pinned = meterRegistry.counter("jvm.threads.virtual.pinned");
+        this.threshold = Duration.ofMillis(thresholdMillis);
+    }
+
+    @PostConstruct
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        log.info("Virtual thread pinning monitor started, threshold={}", threshold);
+    }
+
+    @PreDestroy
+    public void stop() {
+        stream.close();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinned.increment();
+        List<RecordedFrame> frames = event.getStackTrace() != null ? event.getStackTrace().getFrames() : List.of();
+        log.warn("Virtual thread pinned for {} ms at\n\t{}", event.getDuration().toMillis(), frames.stream()
+                .limit(STACK_DEPTH)
+                .map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                        + ":" + frame.getLineNumber())
+                .collect(Collectors.joining("\n\t")));
+    }
+}
@@ -0,0 +1,103 @@
+package ru.practicum.ewm.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+import java.util.function.LongUnaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Сравнение DateMapper на TimestampCodec с прежней реализацией на DateTimeFormatter: время и байты на операцию.
+// Запуск: -Dbenchmark=true, число операций - -Dbenchmark.ops
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class DateMapperBenchmarkTests {
+
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 5;
+    private static final int SAMPLES = 4096;
+
+    private final int ops = Integer.getInteger("benchmark.ops", 2_000_000);
+    private final DateMapper dateMapper = new DateMapper();
+    private final FormatterDateMapper formatterDateMapper = new FormatterDateMapper();
+    private final Instant[] instants = new Instant[SAMPLES];
+    private final String[] texts = new String[SAMPLES];
+
+    DateMapperBenchmarkTests() {
+        Random random = new Random(42);
+        long base = Instant.parse("2024-01-01T00:00:00Z").getEpochSecond();
+        for (int i = 0; i < SAMPLES; i++) {
+            instants[i] = Instant.ofEpochSecond(base + random.nextInt(365 * 86_400));
+            texts[i] = formatterDateMapper.toString(instants[i]);
+        }
+    }
+
+    @Test
+    void compareFormat() {
+        Instant now = Instant.parse("2024-06-01T12:00:00Z");
+        measure("formatter same-second", i -> formatterDateMapper.toString(now).length());
+        measure("codec     same-second", i -> dateMapper.toString(now).length());
+        measure("formatter random", i -> formatterDateMapper.toString(instants[(int) i & (SAMPLES - 1)]).length());
+        measure("codec     random", i -> dateMapper.toString(instants[(int) i & (SAMPLES - 1)]).length());
+
+        for (Instant instant : instants) {
+            assertThat(dateMapper.toString(instant)).isEqualTo(formatterDateMapper.toString(instant));
+        }
+    }
+
+    @Test
+    void compareParse() {
+        measure("formatter parse", i -> formatterDateMapper.toInstant(texts[(int) i & (SAMPLES - 1)]).getEpochSecond());
+        measure("codec     parse", i -> dateMapper.toInstant(texts[(int) i & (SAMPLES - 1)]).getEpochSecond());
+
+        for (String text : texts) {
+            assertThat(dateMapper.toInstant(text)).isEqualTo(formatterDateMapper.toInstant(text));
+        }
+    }
+
+    private void measure(String name, LongUnaryOperator operation) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long sink = 0;
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            sink += run(operation);
+        }
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long startedAt = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            sink += run(operation);
+        }
+        long elapsed = System.nanoTime() - startedAt;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        long total = (long) ops * ROUNDS;
+        System.out.printf("%-24s %8.1f ns/op %8.1f B/op (%d)%n",
+                name, (double) elapsed / total, (double) allocated / total, sink % 10);
+    }
+
+    private long run(LongUnaryOperator operation) {
+        long sink = 0;
+        for (long i = 0; i < ops; i++) {
+            sink += operation.applyAsLong(i);
+        }
+        return sink;
+    }
+
+    // DateMapper до перехода на TimestampCodec
+    private static class FormatterDateMapper {
+        private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+                .withZone(ZoneOffset.UTC);
+
+        String toString(Instant date) {
+            return formatter.format(date);
+        }
+
+        Instant toInstant(String text) {
+            return LocalDateTime.parse(text, formatter).atZone(ZoneOffset.UTC).toInstant();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package ru.practicum.ewm.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TimestampCodecTests {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+            .withZone(ZoneOffset.UTC);
+    private static final long MIN_EPOCH_SECOND = -62135596800L;
+    private static final long MAX_EPOCH_SECOND = 253402300799L;
+
+    @Test
+    void formatAndParseMatchDateTimeFormatter() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            long epochSecond = MIN_EPOCH_SECOND + (long) (random.nextDouble() * (MAX_EPOCH_SECOND - MIN_EPOCH_SECOND));
+            String expected = FORMATTER.format(Instant.ofEpochSecond(epochSecond));
+
+            assertThat(TimestampCodec.format(epochSecond)).isEqualTo(expected);
+            assertThat(TimestampCodec.parseEpochSecond(expected)).isEqualTo(epochSecond);
+        }
+    }
+
+    @Test
+    void formatReusesStringForSameSecond() {
+        long epochSecond = Instant.parse("2024-02-29T23:59:59Z").getEpochSecond();
+
+        String first = TimestampCodec.format(epochSecond);
+
+        assertThat(first).isEqualTo("2024-02-29 23:59:59");
+        assertThat(TimestampCodec.format(epochSecond)).isSameAs(first);
+        assertThat(TimestampCodec.format(epochSecond + 1)).isEqualTo("2024-03-01 00:00:00");
+    }
+
+    @Test
+    void parseRejectsInvalidText() {
+        assertThatThrownBy(() -> TimestampCodec.parseEpochSecond("2023-02-29 00:00:00"))
+                .isInstanceOf(DateTimeParseException.class);
+        assertThatThrownBy(() -> TimestampCodec.parseEpochSecond("2024-01-01T00:00:00"))
+                .isInstanceOf(DateTimeParseException.class);
+        assertThatThrownBy(() -> TimestampCodec.parseEpochSecond("2024-01-01 00:00"))
+                .isInstanceOf(DateTimeParseException.class);
+    }
+}
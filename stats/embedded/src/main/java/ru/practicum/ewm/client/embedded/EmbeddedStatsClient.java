@@ -0,0 +1,165 @@
+package ru.practicum.ewm.client.embedded;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationInitializer;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.EnumerablePropertySource;
+import org.springframework.stereotype.Service;
+import ru.practicum.ewm.client.HitBuffer;
+import ru.practicum.ewm.client.HitQueue;
+import ru.practicum.ewm.client.StatsClient;
+import ru.practicum.ewm.dto.EndpointHitDto;
+import ru.practicum.ewm.dto.GetStatsRequest;
+import ru.practicum.ewm.dto.NewEndpointHitRequestDto;
+import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.ewm.exception.BadRequestException;
+import ru.practicum.ewm.utils.DateMapper;
+import ru.practicum.stats.StatsServer;
+import ru.practicum.stats.exception.ValidationException;
+import ru.practicum.stats.service.StatsService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+// stats-server в том же процессе: отдельный контекст Spring без веб-сервера со своими таблицами в БД сервиса,
+// вызовы идут напрямую в StatsService без HTTP и сериализации
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "stats-server.mode", havingValue = "embedded")
+public class EmbeddedStatsClient implements StatsClient {
+    private static final String CONFIG_NAME = "stats-embedded";
+    private static final String STATS_PREFIX = "stats.";
+    private static final String EMBEDDED_PREFIX = "stats.embedded.";
+
+    private final ConfigurableApplicationContext context;
+    private final StatsService statsService;
+    private final DateMapper dateMapper;
+    private final HitQueue hitQueue;
+
+    // stats.*: настройки stats-server (stats.ingest.mode, stats.cache.* и т.д.) передаются встроенному контексту
+    // stats.embedded.datasource.*: отдельная БД для статистики, по умолчанию - БД сервиса
+    // stats-server.hits.*: как и для HttpStatsClient, при async хиты из report() записываются пачками в фоне
+    @Autowired
+    public EmbeddedStatsClient(
+            @Value("${stats.embedded.datasource.url:${spring.datasource.url}}") String url,
+            @Value("${stats.embedded.datasource.username:${spring.datasource.username:}}") String username,
+            @Value("${stats.embedded.datasource.password:${spring.datasource.password:}}") String password,
+            @Value("${stats.embedded.datasource.driverClassName:${spring.datasource.driverClassName:}}") String driverClassName,
+            @Value("${stats-server.hits.async:false}") boolean asyncHits,
+            @Value("${stats-server.hits.buffer-capacity:65536}") int bufferCapacity,
+            @Value("${stats-server.hits.batch-size:500}") int batchSize,
+            @Value("${stats-server.hits.flush-interval-ms:200}") long flushIntervalMillis,
+            @Value("${stats-server.hits.shutdown-timeout-ms:5000}") long shutdownTimeoutMillis,
+            ConfigurableEnvironment environment,
+            MeterRegistry meterRegistry,
+            ObjectProvider<FlywayMigrationInitializer> flywayMigration,
+            DateMapper dateMapper
+    ) {
+        // миграции сервиса выполняются раньше: иначе его Flyway примет схему с таблицами статистики за базовую версию
+        flywayMigration.getIfAvailable();
+
+        List<String> args = new ArrayList<>();
+        args.add("--spring.config.name=" + CONFIG_NAME);
+        for (String name : statsProperties(environment)) {
+            args.add("--" + name + "=" + environment.getProperty(name));
+        }
+        args.add("--spring.datasource.url=" + url);
+        args.add("--spring.datasource.username=" + username);
+        args.add("--spring.datasource.password=" + password);
+        if (!driverClassName.isEmpty()) {
+            args.add("--spring.datasource.driverClassName=" + driverClassName);
+        }
+        this.context = new SpringApplicationBuilder(StatsServer.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .registerShutdownHook(false)
+                // метрики stats.* публикуются в /actuator/metrics сервиса
+                .initializers(child -> child.getBeanFactory().registerSingleton("meterRegistry", meterRegistry))
+                .run(args.toArray(String[]::new));
+        this.statsService = context.getBean(StatsService.class);
+        this.dateMapper = dateMapper;
+        this.hitQueue = asyncHits
+                ? new HitBuffer(this::createAll, meterRegistry, bufferCapacity, batchSize, flushIntervalMillis,
+                        shutdownTimeoutMillis)
+                : null;
+        log.info("Embedded stats server started, datasource {}", url);
+    }
+
+    @Override
+    public List<ViewStatsDto> getStats(GetStatsRequest request) {
+        return call(() -> statsService.getStats(request));
+    }
+
+    @Override
+    public List<List<ViewStatsDto>> query(List<GetStatsRequest> requests) {
+        return call(() -> statsService.query(requests));
+    }
+
+    @Override
+    public EndpointHitDto create(NewEndpointHitRequestDto request) {
+        return call(() -> statsService.create(request));
+    }
+
+    // Журнал на диске не нужен: хиты пишутся в ту же БД без сети
+    @Override
+    public void report(NewEndpointHitRequestDto request) {
+        if (hitQueue == null) {
+            create(request);
+            return;
+        }
+        if (request.getTimestamp() == null) {
+            request.setTimestamp(dateMapper.toString(dateMapper.now()));
+        }
+        hitQueue.offer(request);
+    }
+
+    @Override
+    public List<EndpointHitDto> createAll(List<NewEndpointHitRequestDto> requests) {
+        return call(() -> statsService.createAll(requests));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (hitQueue != null) {
+            hitQueue.close();
+        }
+        context.close();
+    }
+
+    // ошибки проверки запроса - те же, что HttpStatsClient получает в ответ 400 от stats-server
+    private <T> T call(Supplier<T> call) {
+        try {
+            return call.get();
+        } catch (ValidationException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+    }
+
+    private Set<String> statsProperties(ConfigurableEnvironment environment) {
+        Set<String> names = new TreeSet<>();
+        environment.getPropertySources().forEach(source -> {
+            if (source instanceof EnumerablePropertySource<?> enumerable) {
+                for (String name : enumerable.getPropertyNames()) {
+                    if (name.startsWith(STATS_PREFIX) && !name.startsWith(EMBEDDED_PREFIX)) {
+                        names.add(name);
+                    }
+                }
+            }
+        });
+        return names;
+    }
+}
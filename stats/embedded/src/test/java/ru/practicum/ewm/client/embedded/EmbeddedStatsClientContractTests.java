@@ -0,0 +1,33 @@
+package ru.practicum.ewm.client.embedded;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationInitializer;
+import org.springframework.core.env.StandardEnvironment;
+import ru.practicum.ewm.client.StatsClient;
+import ru.practicum.ewm.utils.DateMapper;
+
+// EmbeddedStatsClient со встроенным контекстом stats-server на отдельной БД H2
+public class EmbeddedStatsClientContractTests extends StatsClientContractTests {
+
+    private static EmbeddedStatsClient client;
+
+    @BeforeAll
+    static void startClient() {
+        client = new EmbeddedStatsClient("jdbc:h2:mem:contract-embedded;DB_CLOSE_DELAY=-1", "stats", "stats",
+                "org.h2.Driver", false, 65536, 500, 200, 5000, new StandardEnvironment(), new SimpleMeterRegistry(),
+                new DefaultListableBeanFactory().getBeanProvider(FlywayMigrationInitializer.class), new DateMapper());
+    }
+
+    @AfterAll
+    static void stopClient() {
+        client.shutdown();
+    }
+
+    @Override
+    protected StatsClient client() {
+        return client;
+    }
+}
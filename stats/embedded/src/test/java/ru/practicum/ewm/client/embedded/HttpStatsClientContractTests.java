@@ -0,0 +1,52 @@
+package ru.practicum.ewm.client.embedded;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import ru.practicum.ewm.client.HttpStatsClient;
+import ru.practicum.ewm.client.StatsClient;
+import ru.practicum.ewm.client.StatsClientProperties;
+import ru.practicum.ewm.utils.DateMapper;
+import ru.practicum.stats.StatsServer;
+
+import java.io.IOException;
+
+// HttpStatsClient против stats-server на случайном порту со своей БД H2
+public class HttpStatsClientContractTests extends StatsClientContractTests {
+
+    private static ConfigurableApplicationContext server;
+    private static HttpStatsClient client;
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        server = new SpringApplicationBuilder(StatsServer.class)
+                .profiles("test")
+                .bannerMode(Banner.Mode.OFF)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:contract-http;DB_CLOSE_DELAY=-1");
+        StatsClientProperties properties = new StatsClientProperties();
+        properties.setUrl("http://127.0.0.1:" + server.getEnvironment().getProperty("local.server.port"));
+        // как у собранного Spring Boot RestTemplateBuilder: JSON-конвертер уже зарегистрирован
+        RestTemplateBuilder builder = new RestTemplateBuilder()
+                .messageConverters(new MappingJackson2HttpMessageConverter());
+        client = new HttpStatsClient(properties, false, builder, Jackson2ObjectMapperBuilder.json(),
+                new SimpleMeterRegistry(), new DateMapper());
+    }
+
+    @AfterAll
+    static void stopServer() {
+        client.shutdown();
+        server.close();
+    }
+
+    @Override
+    protected StatsClient client() {
+        return client;
+    }
+}
@@ -0,0 +1,138 @@
+package ru.practicum.ewm.client.embedded;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.ewm.client.StatsClient;
+import ru.practicum.ewm.dto.EndpointHitDto;
+import ru.practicum.ewm.dto.GetStatsRequest;
+import ru.practicum.ewm.dto.NewEndpointHitRequestDto;
+import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.ewm.exception.BadRequestException;
+import ru.practicum.ewm.utils.DateMapper;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Общий контракт StatsClient: HttpStatsClient и EmbeddedStatsClient должны отвечать одинаково.
+// Наследники поднимают stats-server на своей БД; тесты разводят данные по годам окон и uri
+public abstract class StatsClientContractTests {
+
+    private final DateMapper dateMapper = new DateMapper();
+
+    protected abstract StatsClient client();
+
+    @Test
+    void createReturnsSavedHit() {
+        EndpointHitDto hit = client().create(
+                new NewEndpointHitRequestDto("contract-app", "/create/1", "10.0.0.1", "2011-01-01 10:00:00"));
+
+        assertThat(hit.getId()).isNotNull();
+        assertThat(hit.getApp()).isEqualTo("contract-app");
+        assertThat(hit.getUri()).isEqualTo("/create/1");
+        assertThat(hit.getIp()).isEqualTo("10.0.0.1");
+        assertThat(hit.getTimestamp()).isEqualTo("2011-01-01 10:00:00");
+    }
+
+    @Test
+    void createAllKeepsRequestOrder() {
+        List<NewEndpointHitRequestDto> requests = IntStream.range(0, 20)
+                .mapToObj(i -> new NewEndpointHitRequestDto("contract-app", "/order/" + i, "10.0.1." + i,
+                        "2012-01-01 10:00:00"))
+                .toList();
+
+        List<EndpointHitDto> created = client().createAll(requests);
+
+        assertThat(created).extracting(EndpointHitDto::getUri)
+                .containsExactlyElementsOf(requests.stream().map(NewEndpointHitRequestDto::getUri).toList());
+        assertThat(created).extracting(EndpointHitDto::getIp)
+                .containsExactlyElementsOf(requests.stream().map(NewEndpointHitRequestDto::getIp).toList());
+        assertThat(created).allSatisfy(hit -> assertThat(hit.getId()).isNotNull());
+    }
+
+    @Test
+    void getStatsCountsHitsAndUniqueIpsPerUri() {
+        client().createAll(List.of(
+                hit("/views/a", "10.0.2.1", "2013-01-01 10:00:00"),
+                hit("/views/a", "10.0.2.1", "2013-01-01 11:00:00"),
+                hit("/views/a", "10.0.2.2", "2013-01-01 12:00:00"),
+                hit("/views/b", "10.0.2.3", "2013-01-01 13:00:00")
+        ));
+        Set<String> uris = Set.of("/views/a", "/views/b");
+
+        List<ViewStatsDto> all = client().getStats(window("2013-01-01 00:00:00", "2013-12-31 23:59:59", uris, false));
+        List<ViewStatsDto> unique = client().getStats(window("2013-01-01 00:00:00", "2013-12-31 23:59:59", uris, true));
+
+        assertThat(all).extracting(ViewStatsDto::getUri).containsExactly("/views/a", "/views/b");
+        assertThat(all).extracting(ViewStatsDto::getHits).containsExactly(3L, 1L);
+        assertThat(unique).extracting(ViewStatsDto::getUri).containsExactly("/views/a", "/views/b");
+        assertThat(unique).extracting(ViewStatsDto::getHits).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void getStatsWithoutUrisCountsWindowWithInclusiveBounds() {
+        client().createAll(List.of(
+                hit("/window/early", "10.0.3.1", "2014-01-01 09:59:59"),
+                hit("/window/start", "10.0.3.2", "2014-01-01 10:00:00"),
+                hit("/window/end", "10.0.3.3", "2014-01-01 11:00:00"),
+                hit("/window/late", "10.0.3.4", "2014-01-01 11:00:01")
+        ));
+
+        List<ViewStatsDto> stats = client().getStats(
+                window("2014-01-01 10:00:00", "2014-01-01 11:00:00", Set.of(), false));
+
+        assertThat(stats).extracting(ViewStatsDto::getUri).containsExactlyInAnyOrder("/window/start", "/window/end");
+        assertThat(stats).allSatisfy(viewStats -> assertThat(viewStats.getHits()).isEqualTo(1L));
+    }
+
+    @Test
+    void queryReturnsResultsInWindowOrder() {
+        client().createAll(List.of(
+                hit("/query/1", "10.0.4.1", "2015-03-01 10:00:00"),
+                hit("/query/1", "10.0.4.2", "2015-06-01 10:00:00"),
+                hit("/query/1", "10.0.4.2", "2015-06-02 10:00:00")
+        ));
+        Set<String> uris = Set.of("/query/1");
+
+        List<List<ViewStatsDto>> results = client().query(List.of(
+                window("2015-06-01 00:00:00", "2015-06-30 23:59:59", uris, false),
+                window("2015-01-01 00:00:00", "2015-12-31 23:59:59", uris, true),
+                window("2015-09-01 00:00:00", "2015-09-30 23:59:59", uris, false)
+        ));
+
+        assertThat(results).hasSize(3);
+        assertThat(results.get(0)).extracting(ViewStatsDto::getHits).containsExactly(2L);
+        assertThat(results.get(1)).extracting(ViewStatsDto::getHits).containsExactly(2L);
+        assertThat(results.get(2)).isEmpty();
+    }
+
+    @Test
+    void reportedHitIsCounted() {
+        client().report(hit("/report/1", "10.0.5.1", "2016-01-01 10:00:00"));
+
+        List<ViewStatsDto> stats = client().getStats(
+                window("2016-01-01 00:00:00", "2016-12-31 23:59:59", Set.of("/report/1"), false));
+
+        assertThat(stats).extracting(ViewStatsDto::getHits).containsExactly(1L);
+    }
+
+    @Test
+    void windowEndingBeforeStartIsRejected() {
+        GetStatsRequest request = window("2017-02-01 00:00:00", "2017-01-01 00:00:00", Set.of(), false);
+
+        assertThatThrownBy(() -> client().getStats(request)).isInstanceOf(BadRequestException.class);
+    }
+
+    private static NewEndpointHitRequestDto hit(String uri, String ip, String timestamp) {
+        return new NewEndpointHitRequestDto("contract-app", uri, ip, timestamp);
+    }
+
+    private GetStatsRequest window(String start, String end, Set<String> uris, boolean unique) {
+        Instant from = dateMapper.toInstant(start);
+        Instant to = dateMapper.toInstant(end);
+        return new GetStatsRequest(from, to, uris, unique);
+    }
+}
@@ -0,0 +1,15 @@
+package ru.practicum.stats;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+
+// утилиты из stats-dto (DateMapper и т.п.) лежат в пакете ru.practicum.ewm.utils
+@SpringBootApplication(scanBasePackages = {"ru.practicum.stats", "ru.practicum.ewm.utils"})
+@EnableScheduling
+public class StatsServer {
+	public static void main(String[] args) {
+		SpringApplication.run(StatsServer.class, args);
+	}
+}
@@ -0,0 +1,168 @@
+package ru.practicum.stats.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewm.dto.GetStatsRequest;
+import ru.practicum.stats.ingest.HitListener;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.model.ViewStats;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+// Кеш результатов /stats. Ключ закрытого окна (конец раньше текущей секунды) совпадает с запросом;
+// у окна, заканчивающегося сейчас или в будущем, конец округляется вверх до кванта: хитов позже текущего
+// момента еще нет, поэтому запись не содержит хитов за пределами окна запроса.
+// Новые хиты дописываются в записи без unique; записи с unique, в окно которых попал хит, удаляются.
+// Хиты, пришедшие во время расчета записи, могут быть не учтены; расхождение ограничено TTL.
+@Component
+public class StatsResultCache implements HitListener {
+
+    private static final String ALL_URIS = "";
+
+    @Getter
+    private final boolean enabled;
+    private final long quantumSeconds;
+    private final Cache<StatsKey, CachedStats> cache;
+    private final Map<String, Set<StatsKey>> keysByUri = new ConcurrentHashMap<>();
+
+    public StatsResultCache(
+            MeterRegistry meterRegistry,
+            @Value("${stats.cache.enabled:false}") boolean enabled,
+            @Value("${stats.cache.quantum-seconds:60}") long quantumSeconds,
+            @Value("${stats.cache.max-size:10000}") long maxSize,
+            @Value("${stats.cache.ttl-seconds:300}") long ttlSeconds
+    ) {
+        this.enabled = enabled;
+        this.quantumSeconds = quantumSeconds;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .removalListener(this::unindex)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "stats.results");
+    }
+
+    // countHits считает хиты по uri запроса в окне [start, end] включительно с учетом unique запроса.
+    // Расчет идет вне блокировок кеша; одновременные промахи по одному ключу считаются независимо
+    public List<ViewStats> get(GetStatsRequest request, BiFunction<Instant, Instant, List<ViewStats>> countHits) {
+        StatsKey key = new StatsKey(List.copyOf(new TreeSet<>(request.getUris())), request.getUnique(),
+                request.getStart(), keyEnd(request.getEnd()));
+        CachedStats cached = cache.getIfPresent(key);
+        if (cached == null) {
+            CachedStats loaded = load(key, countHits);
+            cached = cache.asMap().putIfAbsent(key, loaded);
+            if (cached == null) {
+                index(key);
+                cached = loaded;
+            }
+        }
+        return cached.toViewStats();
+    }
+
+    @Override
+    public void onHits(List<EndpointHit> hits) {
+        if (!enabled || cache.estimatedSize() == 0) {
+            return;
+        }
+        for (EndpointHit hit : hits) {
+            patch(keysByUri.get(hit.getUri()), hit);
+            patch(keysByUri.get(ALL_URIS), hit);
+        }
+    }
+
+    private CachedStats load(StatsKey key, BiFunction<Instant, Instant, List<ViewStats>> countHits) {
+        CachedStats cached = new CachedStats();
+        countHits.apply(key.start(), key.end().minusSeconds(1))
+                .forEach(viewStats -> cached.counts.put(
+                        new ViewKey(viewStats.getApp(), viewStats.getUri()), viewStats.getHits()));
+        return cached;
+    }
+
+    private void patch(Set<StatsKey> keys, EndpointHit hit) {
+        if (keys == null) {
+            return;
+        }
+        for (StatsKey key : keys) {
+            if (hit.getTimestamp().isBefore(key.start()) || !hit.getTimestamp().isBefore(key.end())) {
+                continue;
+            }
+            // новый ip нельзя отличить от повторного без множества ip окна, поэтому запись считается заново
+            if (key.unique()) {
+                cache.invalidate(key);
+                continue;
+            }
+            CachedStats cached = cache.getIfPresent(key);
+            if (cached != null) {
+                cached.add(hit);
+            }
+        }
+    }
+
+    private void index(StatsKey key) {
+        if (key.uris().isEmpty()) {
+            keysByUri.computeIfAbsent(ALL_URIS, uri -> ConcurrentHashMap.newKeySet()).add(key);
+        }
+        for (String uri : key.uris()) {
+            keysByUri.computeIfAbsent(uri, u -> ConcurrentHashMap.newKeySet()).add(key);
+        }
+    }
+
+    private void unindex(StatsKey key, CachedStats cached, RemovalCause cause) {
+        if (key == null) {
+            return;
+        }
+        for (String uri : key.uris().isEmpty() ? List.of(ALL_URIS) : key.uris()) {
+            keysByUri.computeIfPresent(uri, (u, keys) -> {
+                keys.remove(key);
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+    }
+
+    // Исключающий конец окна записи; время хитов не позже момента приема, а оно хранится с точностью до секунды
+    private Instant keyEnd(Instant end) {
+        long exclusiveEnd = end.getEpochSecond() + 1;
+        if (end.getEpochSecond() < Instant.now().getEpochSecond()) {
+            return Instant.ofEpochSecond(exclusiveEnd);
+        }
+        long quanta = (exclusiveEnd + quantumSeconds - 1) / quantumSeconds;
+        return Instant.ofEpochSecond(quanta * quantumSeconds);
+    }
+
+    private record StatsKey(List<String> uris, boolean unique, Instant start, Instant end) {
+    }
+
+    private record ViewKey(String app, String uri) {
+    }
+
+    private static class CachedStats {
+        private final Map<ViewKey, Long> counts = new HashMap<>();
+
+        synchronized void add(EndpointHit hit) {
+            counts.merge(new ViewKey(hit.getApp(), hit.getUri()), 1L, Long::sum);
+        }
+
+        synchronized List<ViewStats> toViewStats() {
+            return counts.entrySet().stream()
+                    .map(entry -> new ViewStats(entry.getKey().app(), entry.getKey().uri(), entry.getValue()))
+                    .sorted(Comparator.comparing(ViewStats::getHits).reversed())
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package ru.practicum.stats.controller;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Positive;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import ru.practicum.ewm.dto.EndpointHitDto;
+import ru.practicum.ewm.dto.GetStatsRequest;
+import ru.practicum.ewm.dto.NewEndpointHitRequestDto;
+import ru.practicum.ewm.dto.StatsQueryRequestDto;
+import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.stats.service.StatsService;
+import ru.practicum.ewm.utils.DateMapper;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Semaphore;
+
+// Тот же API, что у StatsController, для профиля reactive (WebFlux).
+// Блокирующие чтения из БД выполняются на jdbcScheduler размером с пул соединений,
+// запись хитов - на ingestScheduler
+@RestController
+@RequestMapping(path = "/")
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveStatsController {
+
+    private static final int MAX_PERMITS = 1 << 20;
+
+    private final StatsService statsService;
+    private final DateMapper dateMapper;
+    private final Scheduler jdbcScheduler;
+    private final Scheduler ingestScheduler;
+
+    @ResponseStatus(HttpStatus.CREATED)
+    @PostMapping("hit")
+    public Mono<EndpointHitDto> create(
+            @Valid @RequestBody NewEndpointHitRequestDto request
+    ) {
+        return Mono.fromCallable(() -> statsService.create(request))
+                .subscribeOn(ingestScheduler);
+    }
+
+    @ResponseStatus(HttpStatus.CREATED)
+    @PostMapping("hits")
+    public Mono<List<EndpointHitDto>> createAll(
+            @NotEmpty @RequestBody List<@Valid NewEndpointHitRequestDto> request
+    ) {
+        return Mono.fromCallable(() -> statsService.createAll(request))
+                .subscribeOn(ingestScheduler);
+    }
+
+    @GetMapping("stats")
+    public Mono<List<ViewStatsDto>> getStats(
+            @RequestParam String start,
+            @RequestParam String end,
+            @RequestParam(defaultValue = "") Set<String> uris,
+            @RequestParam(defaultValue = "false") Boolean unique,
+            @RequestParam(defaultValue = "false") Boolean exact
+    ) {
+        GetStatsRequest request = new GetStatsRequest(
+                dateMapper.toInstant(start),
+                dateMapper.toInstant(end),
+                uris,
+                unique
+        );
+        return Mono.fromCallable(() -> statsService.getStats(request, exact))
+                .subscribeOn(jdbcScheduler);
+    }
+
+    @PostMapping("stats/query")
+    public Mono<List<List<ViewStatsDto>>> query(
+            @NotEmpty @RequestBody List<@Valid StatsQueryRequestDto> request
+    ) {
+        List<GetStatsRequest> requests = request.stream()
+                .map(this::toGetStatsRequest)
+                .toList();
+        return Mono.fromCallable(() -> statsService.query(requests))
+                .subscribeOn(jdbcScheduler);
+    }
+
+    @GetMapping("stats/top")
+    public Mono<List<ViewStatsDto>> getTop(
+            @RequestParam String start,
+            @RequestParam String end,
+            @RequestParam(defaultValue = "10") @Positive Integer k
+    ) {
+        return Mono.fromCallable(() -> statsService.getTop(dateMapper.toInstant(start), dateMapper.toInstant(end), k))
+                .subscribeOn(jdbcScheduler);
+    }
+
+    // JSON-массив или NDJSON (Accept: application/x-ndjson); чтение курсора ждет спроса клиента,
+    // поэтому весь результат в памяти не накапливается
+    @GetMapping(value = "stats/stream", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<ViewStatsDto> streamStats(
+            @RequestParam String start,
+            @RequestParam String end,
+            @RequestParam(defaultValue = "") Set<String> uris,
+            @RequestParam(defaultValue = "false") Boolean unique
+    ) {
+        GetStatsRequest request = new GetStatsRequest(
+                dateMapper.toInstant(start),
+                dateMapper.toInstant(end),
+                uris,
+                unique
+        );
+        statsService.validateRequest(request);
+        return Flux.<ViewStatsDto>create(sink -> {
+                    Demand demand = new Demand(sink);
+                    statsService.streamStats(request, viewStats -> {
+                        demand.await();
+                        sink.next(viewStats);
+                    });
+                    sink.complete();
+                })
+                // запросы подписчика не должны вставать в очередь к потоку, занятому чтением курсора
+                .subscribeOn(jdbcScheduler, false);
+    }
+
+    private GetStatsRequest toGetStatsRequest(StatsQueryRequestDto window) {
+        return new GetStatsRequest(
+                dateMapper.toInstant(window.getStart()),
+                dateMapper.toInstant(window.getEnd()),
+                window.getUris() != null ? window.getUris() : Set.of(),
+                window.getUnique() != null && window.getUnique()
+        );
+    }
+
+    // Спрос подписчика: поток чтения курсора ждет, пока клиент не запросит следующие строки
+    private static class Demand {
+        private final Semaphore permits = new Semaphore(0);
+        private volatile boolean unbounded;
+        private volatile boolean disposed;
+
+        Demand(FluxSink<?> sink) {
+            sink.onDispose(() -> {
+                disposed = true;
+                permits.release();
+            });
+            sink.onRequest(n -> {
+                if (n == Long.MAX_VALUE) {
+                    unbounded = true;
+                }
+                permits.release((int) Math.min(n, MAX_PERMITS - permits.availablePermits()));
+            });
+        }
+
+        void await() {
+            if (unbounded) {
+                return;
+            }
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Stats stream interrupted");
+            }
+            if (disposed) {
+                throw new CancellationException("Stats stream cancelled");
+            }
+        }
+    }
+}
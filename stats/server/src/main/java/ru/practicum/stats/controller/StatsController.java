@@ -0,0 +1,154 @@
+package ru.practicum.stats.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Positive;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.ewm.dto.EndpointHitDto;
+import ru.practicum.ewm.dto.GetStatsRequest;
+import ru.practicum.ewm.dto.NewEndpointHitRequestDto;
+import ru.practicum.ewm.dto.StatsQueryRequestDto;
+import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.stats.service.StatsService;
+import ru.practicum.ewm.utils.DateMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Set;
+
+
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RestController
+@RequestMapping(path = "/")
+@RequiredArgsConstructor
+public class StatsController {
+
+    private final StatsService statsService;
+    private final DateMapper dateMapper;
+    private final ObjectMapper objectMapper;
+
+    @ResponseStatus(HttpStatus.CREATED)
+    @PostMapping("hit")
+    public EndpointHitDto create(
+            @Valid @RequestBody NewEndpointHitRequestDto request
+    ) {
+        return statsService.create(request);
+    }
+
+    @ResponseStatus(HttpStatus.CREATED)
+    @PostMapping("hits")
+    public List<EndpointHitDto> createAll(
+            @NotEmpty @RequestBody List<@Valid NewEndpointHitRequestDto> request
+    ) {
+        return statsService.createAll(request);
+    }
+
+    @GetMapping("stats")
+    public List<ViewStatsDto> getStats(
+            @RequestParam String start,
+            @RequestParam String end,
+            @RequestParam(defaultValue = "") Set<String> uris,
+            @RequestParam(defaultValue = "false") Boolean unique,
+            @RequestParam(defaultValue = "false") Boolean exact
+
+    ) {
+        GetStatsRequest request = new GetStatsRequest(
+                dateMapper.toInstant(start),
+                dateMapper.toInstant(end),
+                uris,
+                unique
+        );
+        return statsService.getStats(request, exact);
+    }
+
+    // Окна и uri передаются в теле запроса, длина URL не ограничивает число uri
+    @PostMapping("stats/query")
+    public List<List<ViewStatsDto>> query(
+            @NotEmpty @RequestBody List<@Valid StatsQueryRequestDto> request
+    ) {
+        return statsService.query(request.stream()
+                .map(this::toGetStatsRequest)
+                .toList());
+    }
+
+    @GetMapping("stats/top")
+    public List<ViewStatsDto> getTop(
+            @RequestParam String start,
+            @RequestParam String end,
+            @RequestParam(defaultValue = "10") @Positive Integer k
+    ) {
+        return statsService.getTop(dateMapper.toInstant(start), dateMapper.toInstant(end), k);
+    }
+
+    // JSON-массив или NDJSON (Accept: application/x-ndjson), строки пишутся по мере чтения из БД
+    @GetMapping(value = "stats/stream", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<StreamingResponseBody> streamStats(
+            @RequestParam String start,
+            @RequestParam String end,
+            @RequestParam(defaultValue = "") Set<String> uris,
+            @RequestParam(defaultValue = "false") Boolean unique,
+            @RequestHeader(value = HttpHeaders.ACCEPT, defaultValue = MediaType.APPLICATION_JSON_VALUE) String accept
+    ) {
+        GetStatsRequest request = new GetStatsRequest(
+                dateMapper.toInstant(start),
+                dateMapper.toInstant(end),
+                uris,
+                unique
+        );
+        statsService.validateRequest(request);
+        boolean ndjson = MediaType.parseMediaTypes(accept).stream()
+                .anyMatch(mediaType -> mediaType.equalsTypeAndSubtype(MediaType.APPLICATION_NDJSON));
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                if (ndjson) {
+                    generator.setRootValueSeparator(new SerializedString("\n"));
+                } else {
+                    generator.writeStartArray();
+                }
+                statsService.streamStats(request, viewStats -> {
+                    try {
+                        generator.writeObject(viewStats);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                if (ndjson) {
+                    generator.writeRaw('\n');
+                } else {
+                    generator.writeEndArray();
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(ndjson ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    private GetStatsRequest toGetStatsRequest(StatsQueryRequestDto window) {
+        return new GetStatsRequest(
+                dateMapper.toInstant(window.getStart()),
+                dateMapper.toInstant(window.getEnd()),
+                window.getUris() != null ? window.getUris() : Set.of(),
+                window.getUnique() != null && window.getUnique()
+        );
+    }
+}
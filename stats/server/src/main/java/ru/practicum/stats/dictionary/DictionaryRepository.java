@@ -0,0 +1,114 @@
+package ru.practicum.stats.dictionary;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stats.repository.DatabasePlatform;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+
+@Slf4j
+@Repository
+public class DictionaryRepository {
+
+    // ограничение на число параметров в одном запросе
+    private static final int IN_CHUNK_SIZE = 1000;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final DatabasePlatform platform;
+
+    public DictionaryRepository(NamedParameterJdbcTemplate jdbcTemplate, DataSource dataSource) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.platform = DatabasePlatform.of(dataSource);
+    }
+
+    public void findAll(Dimension dimension, ObjIntConsumer<String> consumer) {
+        jdbcTemplate.getJdbcTemplate().query("select id, name from " + dimension.getTable(),
+                rs -> {
+                    consumer.accept(rs.getString("name"), rs.getInt("id"));
+                });
+    }
+
+    // Значения вставляются по порядку, чтобы параллельные транзакции брали блокировки строк в одном порядке
+    public void insertAll(Dimension dimension, Collection<String> names) {
+        SqlParameterSource[] parameters = names.stream()
+                .sorted()
+                .map(name -> new MapSqlParameterSource("name", name))
+                .toArray(SqlParameterSource[]::new);
+        String sql = insertSql(dimension.getTable());
+        try {
+            jdbcTemplate.batchUpdate(sql, parameters);
+        } catch (DuplicateKeyException e) {
+            if (platform == DatabasePlatform.POSTGRESQL) {
+                throw e;
+            }
+            // merge в H2 не видит незафиксированную вставку того же значения другой транзакцией
+            // и после ее фиксации нарушает уникальный индекс; такие значения уже есть в словаре
+            for (SqlParameterSource parameter : parameters) {
+                try {
+                    jdbcTemplate.update(sql, parameter);
+                } catch (DuplicateKeyException duplicate) {
+                    log.debug("Dictionary {} value is inserted concurrently", dimension);
+                }
+            }
+        }
+    }
+
+    public Map<String, Integer> findIds(Dimension dimension, Collection<String> names) {
+        Map<String, Integer> ids = new HashMap<>();
+        String sql = "select id, name from " + dimension.getTable() + " where name in (:values)";
+        for (List<Object> chunk : chunks(names)) {
+            jdbcTemplate.query(sql, new MapSqlParameterSource("values", chunk),
+                    rs -> {
+                        ids.put(rs.getString("name"), rs.getInt("id"));
+                    });
+        }
+        return ids;
+    }
+
+    public Map<Integer, String> findNames(Dimension dimension, Collection<Integer> ids) {
+        Map<Integer, String> names = new HashMap<>();
+        String sql = "select id, name from " + dimension.getTable() + " where id in (:values)";
+        for (List<Object> chunk : chunks(ids)) {
+            jdbcTemplate.query(sql, new MapSqlParameterSource("values", chunk),
+                    rs -> {
+                        names.put(rs.getInt("id"), rs.getString("name"));
+                    });
+        }
+        return names;
+    }
+
+    private static List<List<Object>> chunks(Collection<?> values) {
+        List<List<Object>> chunks = new ArrayList<>();
+        List<Object> chunk = new ArrayList<>(IN_CHUNK_SIZE);
+        for (Object value : values) {
+            chunk.add(value);
+            if (chunk.size() == IN_CHUNK_SIZE) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>(IN_CHUNK_SIZE);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    private String insertSql(String table) {
+        if (platform == DatabasePlatform.POSTGRESQL) {
+            return "insert into " + table + " (name) values (:name) on conflict (name) do nothing";
+        }
+        return "merge into " + table + " t using (values (cast(:name as varchar))) s (name) " +
+                "on t.name = s.name " +
+                "when not matched then insert (name) values (s.name)";
+    }
+}
@@ -0,0 +1,14 @@
+package ru.practicum.stats.dictionary;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum Dimension {
+    APP("hit_apps"),
+    URI("hit_uris"),
+    IP("hit_ips");
+
+    private final String table;
+}
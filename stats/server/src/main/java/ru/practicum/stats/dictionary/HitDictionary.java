@@ -0,0 +1,195 @@
+package ru.practicum.stats.dictionary;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.model.HitCount;
+import ru.practicum.stats.model.ViewStats;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Словари app/uri/ip: в hits хранятся целочисленные id, значения кешируются в памяти в обе стороны.
+// Кеш ip ограничен по размеру, вытесненные значения перечитываются из БД.
+// Новые значения вставляются в транзакции записи хитов на ее же соединении и попадают в кеш после ее фиксации:
+// откат не оставляет в кеше несуществующих id, а запись не ждет второго соединения из пула.
+@Slf4j
+@Component
+public class HitDictionary {
+
+    private final DictionaryRepository dictionaryRepository;
+    private final Map<Dimension, Cache<String, Integer>> ids = new EnumMap<>(Dimension.class);
+    private final Map<Dimension, Cache<Integer, String>> names = new EnumMap<>(Dimension.class);
+
+    public HitDictionary(
+            DictionaryRepository dictionaryRepository,
+            @Value("${stats.dictionary.ip-cache-size:100000}") long ipCacheSize
+    ) {
+        this.dictionaryRepository = dictionaryRepository;
+        for (Dimension dimension : Dimension.values()) {
+            ids.put(dimension, newCache(dimension, ipCacheSize));
+            names.put(dimension, newCache(dimension, ipCacheSize));
+        }
+    }
+
+    @PostConstruct
+    public void load() {
+        // ip много и они редко повторяются в запросах, поэтому подгружаются по требованию
+        for (Dimension dimension : List.of(Dimension.APP, Dimension.URI)) {
+            dictionaryRepository.findAll(dimension, (name, id) -> put(dimension, name, id));
+            log.info("Dictionary {} is loaded, size={}", dimension, ids.get(dimension).estimatedSize());
+        }
+    }
+
+    public void encode(List<EndpointHit> hits) {
+        Map<String, Integer> appIds = resolve(Dimension.APP, hits, EndpointHit::getApp);
+        Map<String, Integer> uriIds = resolve(Dimension.URI, hits, EndpointHit::getUri);
+        Map<String, Integer> ipIds = resolve(Dimension.IP, hits, EndpointHit::getIp);
+        for (EndpointHit hit : hits) {
+            hit.setAppId(appIds.get(hit.getApp()));
+            hit.setUriId(uriIds.get(hit.getUri()));
+            hit.setIpId(ipIds.get(hit.getIp()));
+        }
+    }
+
+    public void decode(List<EndpointHit> hits) {
+        Map<Integer, String> apps = names(Dimension.APP, hits, EndpointHit::getAppId);
+        Map<Integer, String> uris = names(Dimension.URI, hits, EndpointHit::getUriId);
+        Map<Integer, String> ips = names(Dimension.IP, hits, EndpointHit::getIpId);
+        for (EndpointHit hit : hits) {
+            hit.setApp(apps.get(hit.getAppId()));
+            hit.setUri(uris.get(hit.getUriId()));
+            hit.setIp(ips.get(hit.getIpId()));
+        }
+    }
+
+    public List<ViewStats> toViewStats(List<HitCount> counts) {
+        Map<Integer, String> apps = names(Dimension.APP, counts, HitCount::getAppId);
+        Map<Integer, String> uris = names(Dimension.URI, counts, HitCount::getUriId);
+        return counts.stream()
+                .map(count -> new ViewStats(apps.get(count.getAppId()), uris.get(count.getUriId()), count.getHits()))
+                .toList();
+    }
+
+    // Только существующие id: неизвестный uri не может встретиться в hits
+    public Set<Integer> findUriIds(Collection<String> uris) {
+        Cache<String, Integer> cached = ids.get(Dimension.URI);
+        Set<Integer> result = new HashSet<>();
+        Set<String> missing = new HashSet<>();
+        for (String uri : uris) {
+            Integer id = cached.getIfPresent(uri);
+            if (id != null) {
+                result.add(id);
+            } else {
+                missing.add(uri);
+            }
+        }
+        if (!missing.isEmpty()) {
+            dictionaryRepository.findIds(Dimension.URI, missing).forEach((name, id) -> {
+                put(Dimension.URI, name, id);
+                result.add(id);
+            });
+        }
+        return result;
+    }
+
+    // id значений пакета; результат не зависит от вытеснения из кеша во время обработки
+    private <T> Map<String, Integer> resolve(Dimension dimension, List<T> items, Function<T, String> getter) {
+        Cache<String, Integer> cached = ids.get(dimension);
+        Map<String, Integer> result = new HashMap<>();
+        Set<String> missing = new HashSet<>();
+        for (T item : items) {
+            String name = getter.apply(item);
+            if (result.containsKey(name)) {
+                continue;
+            }
+            Integer id = cached.getIfPresent(name);
+            if (id != null) {
+                result.put(name, id);
+            } else {
+                missing.add(name);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+        Map<String, Integer> found = dictionaryRepository.findIds(dimension, missing);
+        Set<String> created = missing.stream()
+                .filter(name -> !found.containsKey(name))
+                .collect(Collectors.toSet());
+        found.forEach((name, id) -> put(dimension, name, id));
+        result.putAll(found);
+        if (!created.isEmpty()) {
+            dictionaryRepository.insertAll(dimension, created);
+            Map<String, Integer> inserted = dictionaryRepository.findIds(dimension, created);
+            result.putAll(inserted);
+            putAfterCommit(dimension, inserted);
+        }
+        return result;
+    }
+
+    private void putAfterCommit(Dimension dimension, Map<String, Integer> inserted) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            inserted.forEach((name, id) -> put(dimension, name, id));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                inserted.forEach((name, id) -> put(dimension, name, id));
+            }
+        });
+    }
+
+    private <T> Map<Integer, String> names(Dimension dimension, List<T> items, Function<T, Integer> getter) {
+        Cache<Integer, String> cached = names.get(dimension);
+        Map<Integer, String> result = new HashMap<>();
+        Set<Integer> missing = new HashSet<>();
+        for (T item : items) {
+            Integer id = getter.apply(item);
+            if (result.containsKey(id)) {
+                continue;
+            }
+            String name = cached.getIfPresent(id);
+            if (name != null) {
+                result.put(id, name);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            dictionaryRepository.findNames(dimension, missing).forEach((id, name) -> {
+                put(dimension, name, id);
+                result.put(id, name);
+            });
+        }
+        return result;
+    }
+
+    private void put(Dimension dimension, String name, int id) {
+        ids.get(dimension).put(name, id);
+        names.get(dimension).put(id, name);
+    }
+
+    // app и uri немного, они хранятся целиком; ip вытесняются по размеру
+    private static <K, V> Cache<K, V> newCache(Dimension dimension, long ipCacheSize) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder();
+        if (dimension == Dimension.IP) {
+            builder.maximumSize(ipCacheSize);
+        }
+        return builder.build();
+    }
+}
@@ -1,4 +1,4 @@
-package ru.practicum.ewm.exception;
+package ru.practicum.stats.exception;
 
 public class DuplicatedDataException extends RuntimeException {
     public DuplicatedDataException(String message) {
@@ -1,4 +1,4 @@
-package ru.practicum.ewm.exception;
+package ru.practicum.stats.exception;
 
 public class NotFoundException extends RuntimeException {
     public NotFoundException(String message) {
@@ -0,0 +1,7 @@
+package ru.practicum.stats.exception;
+
+public class ServiceUnavailableException extends RuntimeException {
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package ru.practicum.stats.exception;
+
+public class TooManyRequestsException extends RuntimeException {
+    public TooManyRequestsException(String message) {
+        super(message);
+    }
+}
@@ -1,9 +1,11 @@
-package ru.practicum.ewm.handling;
+package ru.practicum.stats.handling;
 
-import ru.practicum.ewm.exception.ConditionsNotMetException;
-import ru.practicum.ewm.exception.DuplicatedDataException;
-import ru.practicum.ewm.exception.NotFoundException;
-import ru.practicum.ewm.exception.ValidationException;
+import ru.practicum.stats.exception.ConditionsNotMetException;
+import ru.practicum.stats.exception.DuplicatedDataException;
+import ru.practicum.stats.exception.NotFoundException;
+import ru.practicum.stats.exception.ServiceUnavailableException;
+import ru.practicum.stats.exception.TooManyRequestsException;
+import ru.practicum.stats.exception.ValidationException;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
@@ -14,6 +16,8 @@ import org.springframework.web.bind.MissingRequestHeaderException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 
@@ -38,6 +42,24 @@ public class ErrorHandler {
         );
     }
 
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public ErrorResponse handleTooManyRequests(final TooManyRequestsException e) {
+        log.warn("Too many requests: {}", e.getMessage());
+        return new ErrorResponse(
+                e.getMessage()
+        );
+    }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ErrorResponse handleServiceUnavailable(final ServiceUnavailableException e) {
+        log.warn("Service unavailable: {}", e.getMessage());
+        return new ErrorResponse(
+                e.getMessage()
+        );
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleValidationException(final ValidationException e) {
@@ -99,4 +121,30 @@ public class ErrorHandler {
         log.error("Validation errors {} ", error, e);
         return error;
     }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    ValidationErrorResponse onWebExchangeBindException(WebExchangeBindException e) {
+        ValidationErrorResponse error = new ValidationErrorResponse("Ошибка валидации MethodArgument");
+        for (FieldError fieldError : e.getBindingResult().getFieldErrors()) {
+            error.getViolations().add(
+                    new Violation(fieldError.getField(), fieldError.getDefaultMessage())
+            );
+        }
+        log.error("Validation errors {} ", error, e);
+        return error;
+    }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    ValidationErrorResponse onHandlerMethodValidationException(HandlerMethodValidationException e) {
+        ValidationErrorResponse error = new ValidationErrorResponse("Ошибка валидации MethodArgument");
+        e.getAllValidationResults().forEach(result -> result.getResolvableErrors().forEach(resolvableError ->
+                error.getViolations().add(
+                        new Violation(result.getMethodParameter().getParameterName(), resolvableError.getDefaultMessage())
+                )
+        ));
+        log.error("Validation errors {} ", error, e);
+        return error;
+    }
 }
\ No newline at end of file
@@ -1,4 +1,4 @@
-package ru.practicum.ewm.handling;
+package ru.practicum.stats.handling;
 
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
@@ -1,4 +1,4 @@
-package ru.practicum.ewm.handling;
+package ru.practicum.stats.handling;
 
 import lombok.AllArgsConstructor;
 import lombok.Getter;
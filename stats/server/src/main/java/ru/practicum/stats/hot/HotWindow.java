@@ -0,0 +1,245 @@
+package ru.practicum.stats.hot;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.ingest.HitListener;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.model.HitCount;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Хиты за последние часы в колонках примитивов, отсортированных по времени.
+// Окно полно начиная с horizon: после старта сервера оно заполняется только новыми хитами.
+@Slf4j
+@Component
+public class HotWindow implements HitListener {
+
+    private static final int INITIAL_CAPACITY = 65_536;
+    private static final int BYTES_PER_HIT = Long.BYTES + 3 * Integer.BYTES;
+
+    @Getter
+    private final boolean enabled;
+    private final long retentionSeconds;
+    private final int maxHits;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long[] timestamps = new long[0];
+    private int[] appIds = new int[0];
+    private int[] uriIds = new int[0];
+    private int[] ipIds = new int[0];
+    private int head;
+    private int tail;
+    private long horizon;
+
+    public HotWindow(
+            MeterRegistry meterRegistry,
+            @Value("${stats.hot.hours:0}") int hours,
+            @Value("${stats.hot.max-hits:2000000}") int maxHits
+    ) {
+        this.enabled = hours > 0 && maxHits > 0;
+        this.retentionSeconds = hours * 3600L;
+        this.maxHits = maxHits;
+        this.horizon = Instant.now().getEpochSecond() + 1;
+        Gauge.builder("stats.hot.hits", this, HotWindow::size).register(meterRegistry);
+        Gauge.builder("stats.hot.memory", this, window -> (double) window.capacity() * BYTES_PER_HIT)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("stats.hot.horizon.age", this, HotWindow::horizonAge)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void onHits(List<EndpointHit> hits) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            evictExpired();
+            for (EndpointHit hit : hits) {
+                long timestamp = hit.getTimestamp().getEpochSecond();
+                if (timestamp < horizon) {
+                    continue;
+                }
+                if (tail - head == maxHits) {
+                    evictOldestSecond();
+                    if (timestamp < horizon) {
+                        continue;
+                    }
+                }
+                insert(timestamp, hit.getAppId(), hit.getUriId(), hit.getIpId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${stats.hot.evict-interval-ms:60000}")
+    public void evict() {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            evictExpired();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean covers(Instant start) {
+        if (!enabled) {
+            return false;
+        }
+        lock.readLock().lock();
+        try {
+            return start.getEpochSecond() >= effectiveHorizon();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Считает хиты в [max(start, horizon), end); возвращает и horizon, по которому разделено окно
+    public HotCounts count(Instant start, Instant end, Set<Integer> uriFilter, boolean unique) {
+        lock.readLock().lock();
+        try {
+            long from = Math.max(start.getEpochSecond(), effectiveHorizon());
+            long to = end.getEpochSecond();
+            Map<Long, long[]> counts = new HashMap<>();
+            Map<Long, Set<Integer>> ips = new HashMap<>();
+            for (int i = lowerBound(from); i < tail && timestamps[i] < to; i++) {
+                if (!uriFilter.isEmpty() && !uriFilter.contains(uriIds[i])) {
+                    continue;
+                }
+                long key = ((long) appIds[i] << 32) | (uriIds[i] & 0xFFFFFFFFL);
+                if (unique) {
+                    ips.computeIfAbsent(key, k -> new HashSet<>()).add(ipIds[i]);
+                } else {
+                    counts.computeIfAbsent(key, k -> new long[1])[0]++;
+                }
+            }
+            List<HitCount> result = new ArrayList<>();
+            if (unique) {
+                ips.forEach((key, values) -> result.add(toHitCount(key, values.size())));
+            } else {
+                counts.forEach((key, value) -> result.add(toHitCount(key, value[0])));
+            }
+            return new HotCounts(Instant.ofEpochSecond(from), result);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long effectiveHorizon() {
+        return Math.max(horizon, Instant.now().getEpochSecond() - retentionSeconds);
+    }
+
+    private void evictExpired() {
+        horizon = effectiveHorizon();
+        head = lowerBound(horizon);
+        if (head == tail) {
+            head = 0;
+            tail = 0;
+        }
+    }
+
+    // При переполнении вытесняется целая самая старая секунда, чтобы окно оставалось полным с horizon
+    private void evictOldestSecond() {
+        horizon = timestamps[head] + 1;
+        head = lowerBound(horizon);
+    }
+
+    private void insert(long timestamp, int appId, int uriId, int ipId) {
+        if (tail == timestamps.length) {
+            makeRoom();
+        }
+        // хиты приходят почти упорядоченными, обычно позиция - конец массива
+        int position = tail;
+        while (position > head && timestamps[position - 1] > timestamp) {
+            position--;
+        }
+        if (position < tail) {
+            System.arraycopy(timestamps, position, timestamps, position + 1, tail - position);
+            System.arraycopy(appIds, position, appIds, position + 1, tail - position);
+            System.arraycopy(uriIds, position, uriIds, position + 1, tail - position);
+            System.arraycopy(ipIds, position, ipIds, position + 1, tail - position);
+        }
+        timestamps[position] = timestamp;
+        appIds[position] = appId;
+        uriIds[position] = uriId;
+        ipIds[position] = ipId;
+        tail++;
+    }
+
+    private void makeRoom() {
+        int size = tail - head;
+        int capacity = timestamps.length;
+        if (size * 2 > capacity || capacity == 0) {
+            capacity = Math.min(Math.max(INITIAL_CAPACITY, capacity * 2), maxHits);
+        }
+        timestamps = compact(timestamps, capacity);
+        appIds = compact(appIds, capacity);
+        uriIds = compact(uriIds, capacity);
+        ipIds = compact(ipIds, capacity);
+        head = 0;
+        tail = size;
+    }
+
+    private long[] compact(long[] column, int capacity) {
+        long[] result = capacity == column.length ? column : new long[capacity];
+        System.arraycopy(column, head, result, 0, tail - head);
+        return result;
+    }
+
+    private int[] compact(int[] column, int capacity) {
+        int[] result = capacity == column.length ? column : new int[capacity];
+        System.arraycopy(column, head, result, 0, tail - head);
+        return result;
+    }
+
+    private int lowerBound(long timestamp) {
+        int low = head;
+        int high = tail;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (timestamps[middle] < timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int size() {
+        return tail - head;
+    }
+
+    private int capacity() {
+        return timestamps.length;
+    }
+
+    private double horizonAge() {
+        return enabled ? Instant.now().getEpochSecond() - effectiveHorizon() : 0;
+    }
+
+    private static HitCount toHitCount(long key, long hits) {
+        return new HitCount((int) (key >>> 32), (int) key, hits);
+    }
+
+    public record HotCounts(Instant horizon, List<HitCount> counts) {
+    }
+}
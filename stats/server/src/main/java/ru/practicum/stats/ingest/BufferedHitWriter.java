@@ -0,0 +1,213 @@
+package ru.practicum.stats.ingest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats.exception.ServiceUnavailableException;
+import ru.practicum.stats.exception.TooManyRequestsException;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.store.HitStore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Хиты возвращаются без id: id назначается при записи пакета из буфера, после ответа клиенту.
+// После начала остановки хиты отклоняются (503), принятые до нее дописываются до завершения stop()
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stats.ingest.mode", havingValue = "buffered")
+public class BufferedHitWriter implements HitWriter {
+
+    private final HitStore hitStore;
+    private final HitNotifier hitNotifier;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<EndpointHit> buffer;
+    // свободные места буфера; пакет резервирует места целиком до постановки в очередь
+    private final Semaphore permits;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final BackpressurePolicy backpressure;
+    private final long blockTimeoutMillis;
+    private final Counter dropped;
+    private final Counter rejected;
+    private final Counter lost;
+    private final Thread flusher;
+    // проверка running и постановка в буфер под общей блокировкой, остановка - под исключительной:
+    // после stop() в буфер не попадет хит, который уже не будет дописан
+    private final ReadWriteLock stopLock = new ReentrantReadWriteLock();
+    private volatile boolean running = true;
+
+    public BufferedHitWriter(
+            HitStore hitStore,
+            HitNotifier hitNotifier,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${stats.ingest.buffer.capacity:65536}") int capacity,
+            @Value("${stats.ingest.buffer.batch-size:1000}") int batchSize,
+            @Value("${stats.ingest.buffer.flush-interval-ms:200}") long flushIntervalMillis,
+            @Value("${stats.ingest.buffer.backpressure:block}") String backpressure,
+            @Value("${stats.ingest.buffer.block-timeout-ms:1000}") long blockTimeoutMillis
+    ) {
+        this.hitStore = hitStore;
+        this.hitNotifier = hitNotifier;
+        this.transactionTemplate = transactionTemplate;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.permits = new Semaphore(capacity, true);
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.backpressure = BackpressurePolicy.valueOf(backpressure.toUpperCase(Locale.ROOT));
+        this.blockTimeoutMillis = blockTimeoutMillis;
+        this.dropped = meterRegistry.counter("stats.ingest.buffer.dropped");
+        this.rejected = meterRegistry.counter("stats.ingest.buffer.rejected");
+        this.lost = meterRegistry.counter("stats.ingest.buffer.lost");
+        meterRegistry.gauge("stats.ingest.buffer.size", buffer, BlockingQueue::size);
+        this.flusher = new Thread(this::runFlusher, "hit-flusher");
+    }
+
+    @PostConstruct
+    public void start() {
+        flusher.start();
+        log.info("Buffered hit ingestion started, backpressure={}", backpressure);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        stopLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            stopLock.writeLock().unlock();
+        }
+        flusher.join();
+        List<EndpointHit> batch = new ArrayList<>(batchSize);
+        drain(batch);
+        log.info("Buffered hit ingestion stopped");
+    }
+
+    @Override
+    public EndpointHit write(EndpointHit hit) {
+        enqueue(List.of(hit));
+        return hit;
+    }
+
+    @Override
+    public List<EndpointHit> writeAll(List<EndpointHit> hits) {
+        enqueue(hits);
+        return hits;
+    }
+
+    // Пакет принимается или отклоняется целиком: при отказе в буфере не остается его части
+    private void enqueue(List<EndpointHit> hits) {
+        if (hits.isEmpty()) {
+            return;
+        }
+        if (!running) {
+            stopping();
+        }
+        if (hits.size() > capacity) {
+            reject();
+        }
+        if (!permits.tryAcquire(hits.size())) {
+            switch (backpressure) {
+                case DROP -> {
+                    dropped.increment(hits.size());
+                    return;
+                }
+                case REJECT -> reject();
+                case BLOCK -> {
+                    try {
+                        if (!permits.tryAcquire(hits.size(), blockTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                            reject();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        reject();
+                    }
+                }
+            }
+        }
+        stopLock.readLock().lock();
+        try {
+            if (!running) {
+                permits.release(hits.size());
+                stopping();
+            }
+            buffer.addAll(hits);
+        } finally {
+            stopLock.readLock().unlock();
+        }
+    }
+
+    private void stopping() {
+        rejected.increment();
+        throw new ServiceUnavailableException("Hit ingestion is stopping");
+    }
+
+    private void reject() {
+        rejected.increment();
+        throw new TooManyRequestsException("Hit buffer is full");
+    }
+
+    private void runFlusher() {
+        List<EndpointHit> batch = new ArrayList<>(batchSize);
+        try {
+            while (running) {
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    EndpointHit hit = buffer.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (hit == null) {
+                        break;
+                    }
+                    batch.add(hit);
+                    buffer.drainTo(batch, batchSize - batch.size());
+                }
+                flush(batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Hit flusher interrupted");
+        }
+        // при остановке дописывается все, что осталось в буфере
+        drain(batch);
+    }
+
+    private void drain(List<EndpointHit> batch) {
+        do {
+            buffer.drainTo(batch, batchSize - batch.size());
+            flush(batch);
+        } while (!buffer.isEmpty());
+    }
+
+    private void flush(List<EndpointHit> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                hitStore.append(batch);
+                hitNotifier.publish(List.copyOf(batch));
+            });
+        } catch (Exception e) {
+            lost.increment(batch.size());
+            log.error("Flush hits error, lost {} hits", batch.size(), e);
+        } finally {
+            permits.release(batch.size());
+            batch.clear();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package ru.practicum.stats.ingest;
+
+import ru.practicum.stats.model.EndpointHit;
+
+import java.util.List;
+
+public interface HitListener {
+    void onHits(List<EndpointHit> hits);
+
+    // true - слушатель пишет в БД и вызывается в транзакции записи хитов,
+    // false - обновляет только память и вызывается после фиксации транзакции
+    default boolean isTransactional() {
+        return false;
+    }
+}
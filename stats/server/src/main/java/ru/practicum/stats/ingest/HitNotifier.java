@@ -0,0 +1,53 @@
+package ru.practicum.stats.ingest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.stats.model.EndpointHit;
+
+import java.util.List;
+
+// Рассылает записанные хиты слушателям: транзакционным - сразу, остальным - после фиксации транзакции,
+// чтобы откат записи не оставлял в памяти хиты, которых нет в хранилище
+@Slf4j
+@Component
+public class HitNotifier {
+
+    private final List<HitListener> transactionalListeners;
+    private final List<HitListener> memoryListeners;
+
+    public HitNotifier(List<HitListener> hitListeners) {
+        this.transactionalListeners = hitListeners.stream()
+                .filter(HitListener::isTransactional)
+                .toList();
+        this.memoryListeners = hitListeners.stream()
+                .filter(listener -> !listener.isTransactional())
+                .toList();
+    }
+
+    public void publish(List<EndpointHit> hits) {
+        transactionalListeners.forEach(listener -> listener.onHits(hits));
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    notifyMemoryListeners(hits);
+                }
+            });
+        } else {
+            notifyMemoryListeners(hits);
+        }
+    }
+
+    // Транзакция уже зафиксирована, ошибка слушателя не должна превращаться в ошибку записи
+    private void notifyMemoryListeners(List<EndpointHit> hits) {
+        for (HitListener listener : memoryListeners) {
+            try {
+                listener.onHits(hits);
+            } catch (RuntimeException e) {
+                log.error("Hit listener {} error", listener.getClass().getSimpleName(), e);
+            }
+        }
+    }
+}
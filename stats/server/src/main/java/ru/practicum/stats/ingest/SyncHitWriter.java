@@ -0,0 +1,35 @@
+package ru.practicum.stats.ingest;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.store.HitStore;
+
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "stats.ingest.mode", havingValue = "sync", matchIfMissing = true)
+public class SyncHitWriter implements HitWriter {
+
+    private final HitStore hitStore;
+    private final HitNotifier hitNotifier;
+
+    @Override
+    @Transactional
+    public EndpointHit write(EndpointHit hit) {
+        List<EndpointHit> hits = hitStore.append(List.of(hit));
+        hitNotifier.publish(hits);
+        return hit;
+    }
+
+    @Override
+    @Transactional
+    public List<EndpointHit> writeAll(List<EndpointHit> hits) {
+        hits = hitStore.append(hits);
+        hitNotifier.publish(hits);
+        return hits;
+    }
+}
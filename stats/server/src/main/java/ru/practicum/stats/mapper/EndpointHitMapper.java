@@ -1,12 +1,12 @@
-package ru.practicum.ewm.mapper;
+package ru.practicum.stats.mapper;
 
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import ru.practicum.ewm.dto.EndpointHitDto;
 import ru.practicum.ewm.dto.NewEndpointHitRequestDto;
 import ru.practicum.ewm.dto.ViewStatsDto;
-import ru.practicum.ewm.model.EndpointHit;
-import ru.practicum.ewm.model.ViewStats;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.model.ViewStats;
 import ru.practicum.ewm.utils.DateMapper;
 
 import static org.mapstruct.MappingConstants.ComponentModel.SPRING;
@@ -18,6 +18,9 @@ public interface EndpointHitMapper {
 
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "timestamp", ignore = true)
+    @Mapping(target = "appId", ignore = true)
+    @Mapping(target = "uriId", ignore = true)
+    @Mapping(target = "ipId", ignore = true)
     EndpointHit toHit(NewEndpointHitRequestDto request);
 
     ViewStatsDto toDto(ViewStats viewStats);
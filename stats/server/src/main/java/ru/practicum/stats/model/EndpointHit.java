@@ -1,10 +1,11 @@
-package ru.practicum.ewm.model;
+package ru.practicum.stats.model;
 
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -18,8 +19,15 @@ public class EndpointHit {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
+    private Integer appId;
+    private Integer uriId;
+    private Integer ipId;
+    private Instant timestamp;
+    // значения из словарей, в hits хранятся только их id
+    @Transient
     private String app;
+    @Transient
     private String uri;
+    @Transient
     private String ip;
-    private Instant timestamp;
 }
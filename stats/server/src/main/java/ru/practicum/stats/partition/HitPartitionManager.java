@@ -0,0 +1,237 @@
+package ru.practicum.stats.partition;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats.exception.InternalServerException;
+import ru.practicum.stats.repository.DatabasePlatform;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+
+// Управляет секциями таблицы hits в PostgreSQL: заранее создает будущие и удаляет старые по политике хранения.
+// Секции создаются на premake интервалов вперед, чтобы hits_default оставалась пустой и attach не сканировал ее.
+// Хиты, все же попавшие в секцию по умолчанию, переносятся в секции их интервалов только при старте.
+@Slf4j
+@Component
+public class HitPartitionManager {
+
+    private static final String PARTITION_PREFIX = "hits_p";
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final String COLUMNS = "id, app_id, uri_id, ip_id, timestamp";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final PartitionInterval interval;
+    private final int premake;
+    private final int retention;
+    private final boolean dropExpired;
+    private final int moveBatchSize;
+
+    public HitPartitionManager(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            DataSource dataSource,
+            @Value("${stats.partitions.interval:day}") String interval,
+            @Value("${stats.partitions.premake:7}") int premake,
+            @Value("${stats.partitions.retention:0}") int retention,
+            @Value("${stats.partitions.retention-action:detach}") String retentionAction,
+            @Value("${stats.partitions.move-batch-size:10000}") int moveBatchSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = DatabasePlatform.of(dataSource) == DatabasePlatform.POSTGRESQL && isHitsPartitioned(jdbcTemplate);
+        this.interval = PartitionInterval.valueOf(interval.toUpperCase(Locale.ROOT));
+        this.premake = premake;
+        this.retention = retention;
+        this.dropExpired = "drop".equalsIgnoreCase(retentionAction);
+        this.moveBatchSize = moveBatchSize;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        LocalDate current = currentInterval();
+        LocalDate oldestKept = oldestKept(current);
+        List<String> attached = attachedPartitions();
+        for (LocalDate start : defaultPartitionIntervals()) {
+            // секции старше срока хранения не восстанавливаются, их хиты остаются в секции по умолчанию
+            if (retention > 0 && start.isBefore(oldestKept)) {
+                continue;
+            }
+            if (!attached.contains(partitionName(start))) {
+                moveToPartition(start);
+            }
+        }
+        maintain();
+    }
+
+    @Scheduled(cron = "${stats.partitions.cron:0 5 * * * *}")
+    public void maintain() {
+        if (!enabled) {
+            return;
+        }
+        LocalDate current = currentInterval();
+        List<String> attached = attachedPartitions();
+        LocalDate start = current;
+        for (int i = 0; i <= premake; i++) {
+            if (!attached.contains(partitionName(start))) {
+                createPartition(start);
+            }
+            start = interval.next(start);
+        }
+        if (retention > 0) {
+            removeExpiredPartitions(oldestKept(current));
+        }
+    }
+
+    // Пустая секция подключается без переноса; если хиты ее интервала уже в секции по умолчанию,
+    // она не создается до старта, чтобы не блокировать hits_default на время переноса
+    private void createPartition(LocalDate start) {
+        String name = partitionName(start);
+        LocalDate end = interval.next(start);
+        try {
+            Boolean created = transactionTemplate.execute(status -> {
+                if (hasDefaultHits(start, end)) {
+                    return false;
+                }
+                jdbcTemplate.execute("create table if not exists " + name +
+                        " (like hits including defaults including constraints)");
+                attach(name, start, end);
+                return true;
+            });
+            if (Boolean.TRUE.equals(created)) {
+                log.info("Hits partition {} is attached", name);
+            } else {
+                log.warn("Hits partition {} is not attached: its hits are in hits_default and will be moved " +
+                        "on the next start", name);
+            }
+        } catch (DataAccessException e) {
+            throw new InternalServerException(String.format("Could not attach hits partition %s: %s", name,
+                    e.getMostSpecificCause().getMessage()));
+        }
+    }
+
+    // Хиты переносятся пачками по moveBatchSize, каждая в своей транзакции; под исключительной блокировкой
+    // hits_default переносится только остаток, записанный во время переноса, и выполняется attach:
+    // хит, попавший в секцию по умолчанию между переносом и attach, сделал бы attach невозможным.
+    // До attach перенесенные хиты не видны в запросах к hits, поэтому перенос выполняется до приема запросов
+    private void moveToPartition(LocalDate start) {
+        String name = partitionName(start);
+        LocalDate end = interval.next(start);
+        try {
+            jdbcTemplate.execute("create table if not exists " + name +
+                    " (like hits including defaults including constraints)");
+            long moved = 0;
+            int rows;
+            do {
+                rows = moveBatch(name, start, end, moveBatchSize);
+                moved += rows;
+            } while (rows == moveBatchSize);
+            Integer rest = transactionTemplate.execute(status -> {
+                jdbcTemplate.execute("lock table hits_default in access exclusive mode");
+                int restRows = moveBatch(name, start, end, Integer.MAX_VALUE);
+                attach(name, start, end);
+                return restRows;
+            });
+            log.info("Hits partition {} is attached, {} hits moved from hits_default", name,
+                    moved + (rest == null ? 0 : rest));
+        } catch (DataAccessException e) {
+            throw new InternalServerException(String.format("Could not attach hits partition %s: %s", name,
+                    e.getMostSpecificCause().getMessage()));
+        }
+    }
+
+    private int moveBatch(String name, LocalDate start, LocalDate end, int limit) {
+        Integer rows = transactionTemplate.execute(status -> jdbcTemplate.update(
+                "with moved as (delete from hits_default where ctid = any(array(" +
+                        "select ctid from hits_default where timestamp >= ? and timestamp < ? limit ?)) " +
+                        "returning " + COLUMNS + ") " +
+                        "insert into " + name + " (" + COLUMNS + ") select " + COLUMNS + " from moved",
+                start.atStartOfDay(), end.atStartOfDay(), limit));
+        return rows == null ? 0 : rows;
+    }
+
+    private void attach(String name, LocalDate start, LocalDate end) {
+        jdbcTemplate.execute("alter table hits attach partition " + name +
+                " for values from ('" + start + " 00:00:00') to ('" + end + " 00:00:00')");
+    }
+
+    private boolean hasDefaultHits(LocalDate start, LocalDate end) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("select exists(select 1 from hits_default " +
+                        "where timestamp >= ? and timestamp < ?)", Boolean.class,
+                start.atStartOfDay(), end.atStartOfDay()));
+    }
+
+    // Начала интервалов, хиты которых лежат в секции по умолчанию, например после перехода на секционирование
+    private List<LocalDate> defaultPartitionIntervals() {
+        String unit = interval == PartitionInterval.WEEK ? "week" : "day";
+        return jdbcTemplate.queryForList("select distinct date_trunc('" + unit + "', timestamp)::date " +
+                        "from hits_default", Date.class).stream()
+                .map(Date::toLocalDate)
+                .sorted()
+                .toList();
+    }
+
+    // hits.timestamp хранится в UTC (hibernate.jdbc.time_zone), поэтому и границы секций считаются в UTC
+    private LocalDate currentInterval() {
+        return interval.start(LocalDate.now(ZoneOffset.UTC));
+    }
+
+    private LocalDate oldestKept(LocalDate current) {
+        LocalDate oldestKept = current;
+        for (int i = 0; i < retention; i++) {
+            oldestKept = interval.start(oldestKept.minusDays(1));
+        }
+        return oldestKept;
+    }
+
+    private String partitionName(LocalDate start) {
+        return PARTITION_PREFIX + NAME_FORMAT.format(start);
+    }
+
+    private void removeExpiredPartitions(LocalDate oldestKept) {
+        for (String name : attachedPartitions()) {
+            LocalDate start = LocalDate.parse(name.substring(PARTITION_PREFIX.length()), NAME_FORMAT);
+            if (!start.isBefore(oldestKept)) {
+                continue;
+            }
+            jdbcTemplate.execute("alter table hits detach partition " + name);
+            if (dropExpired) {
+                jdbcTemplate.execute("drop table " + name);
+            }
+            log.info("Hits partition {} is {}", name, dropExpired ? "dropped" : "detached");
+        }
+    }
+
+    private List<String> attachedPartitions() {
+        return jdbcTemplate.queryForList("select c.relname from pg_inherits i " +
+                        "join pg_class c on c.oid = i.inhrelid " +
+                        "join pg_class p on p.oid = i.inhparent " +
+                        "where p.relname = 'hits' and c.relname like '" + PARTITION_PREFIX + "%'",
+                String.class);
+    }
+
+    private static boolean isHitsPartitioned(JdbcTemplate jdbcTemplate) {
+        List<String> kinds = jdbcTemplate.queryForList("select relkind::varchar from pg_class " +
+                "where relname = 'hits' and relnamespace = 'public'::regnamespace", String.class);
+        if (!kinds.contains("p")) {
+            log.warn("Table hits is not partitioned, partition management is disabled");
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,22 @@
+package ru.practicum.stats.repository;
+
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import ru.practicum.stats.exception.InternalServerException;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+
+public enum DatabasePlatform {
+    POSTGRESQL,
+    H2;
+
+    public static DatabasePlatform of(DataSource dataSource) {
+        try {
+            String productName = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+            return "PostgreSQL".equals(productName) ? POSTGRESQL : H2;
+        } catch (MetaDataAccessException e) {
+            throw new InternalServerException("Could not detect database platform: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package ru.practicum.stats.repository;
+
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.model.HitCount;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+public interface HitBatchRepository {
+    List<EndpointHit> insertAll(List<EndpointHit> hits);
+
+    void scanAll(int chunkSize, Consumer<List<EndpointHit>> consumer);
+
+    void scanFrom(Instant from, int chunkSize, Consumer<List<EndpointHit>> consumer);
+
+    List<EndpointHit> findAfter(long afterId, int limit);
+
+    long maxId();
+
+    void scanDistinctIps(Instant from, Instant to, Set<Integer> uriIds, int chunkSize,
+                         Consumer<List<EndpointHit>> consumer);
+
+    void streamCounts(Instant from, Instant to, Set<Integer> uriIds, boolean unique, Consumer<HitCount> consumer);
+}
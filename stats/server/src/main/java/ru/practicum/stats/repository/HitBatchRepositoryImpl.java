@@ -0,0 +1,171 @@
+package ru.practicum.stats.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import ru.practicum.stats.exception.InternalServerException;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.model.HitCount;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+public class HitBatchRepositoryImpl implements HitBatchRepository {
+
+    private static final int JDBC_BATCH_SIZE = 1000;
+    private static final int SCAN_FETCH_SIZE = 10_000;
+    private static final String INSERT_HIT = "insert into hits (app_id, uri_id, ip_id, timestamp) " +
+            "values (:appId, :uriId, :ipId, :timestamp)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final JdbcTemplate scanJdbcTemplate;
+    private final NamedParameterJdbcTemplate cursorJdbcTemplate;
+
+    public HitBatchRepositoryImpl(NamedParameterJdbcTemplate jdbcTemplate, DataSource dataSource) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.scanJdbcTemplate = new JdbcTemplate(dataSource);
+        this.scanJdbcTemplate.setFetchSize(SCAN_FETCH_SIZE);
+        this.cursorJdbcTemplate = new NamedParameterJdbcTemplate(scanJdbcTemplate);
+    }
+
+    @Override
+    public List<EndpointHit> insertAll(List<EndpointHit> hits) {
+        for (int from = 0; from < hits.size(); from += JDBC_BATCH_SIZE) {
+            List<EndpointHit> chunk = hits.subList(from, Math.min(from + JDBC_BATCH_SIZE, hits.size()));
+            SqlParameterSource[] parameters = chunk.stream()
+                    .map(this::toParameters)
+                    .toArray(SqlParameterSource[]::new);
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(INSERT_HIT, parameters, keyHolder, new String[]{"id"});
+            List<Map<String, Object>> keys = keyHolder.getKeyList();
+            if (keys.size() != chunk.size()) {
+                throw new InternalServerException(String.format(
+                        "Generated keys count mismatch, rows=%d, keys=%d", chunk.size(), keys.size()));
+            }
+            for (int i = 0; i < chunk.size(); i++) {
+                chunk.get(i).setId(((Number) keys.get(i).get("id")).longValue());
+            }
+        }
+        return hits;
+    }
+
+    // Для курсора в PostgreSQL вызывать внутри транзакции
+    @Override
+    public void scanAll(int chunkSize, Consumer<List<EndpointHit>> consumer) {
+        scan("select app_id, uri_id, ip_id, timestamp from hits", new Object[0], chunkSize, consumer);
+    }
+
+    // Для курсора в PostgreSQL вызывать внутри транзакции
+    @Override
+    public void scanFrom(Instant from, int chunkSize, Consumer<List<EndpointHit>> consumer) {
+        scan("select app_id, uri_id, ip_id, timestamp from hits where timestamp >= ?",
+                new Object[]{Timestamp.from(from)}, chunkSize, consumer);
+    }
+
+    private void scan(String sql, Object[] args, int chunkSize, Consumer<List<EndpointHit>> consumer) {
+        List<EndpointHit> chunk = new ArrayList<>(chunkSize);
+        scanJdbcTemplate.query(sql, rs -> {
+            EndpointHit hit = new EndpointHit();
+            hit.setAppId(rs.getInt("app_id"));
+            hit.setUriId(rs.getInt("uri_id"));
+            hit.setIpId(rs.getInt("ip_id"));
+            hit.setTimestamp(rs.getTimestamp("timestamp").toInstant());
+            chunk.add(hit);
+            if (chunk.size() == chunkSize) {
+                consumer.accept(chunk);
+                chunk.clear();
+            }
+        }, args);
+        if (!chunk.isEmpty()) {
+            consumer.accept(chunk);
+        }
+    }
+
+    @Override
+    public List<EndpointHit> findAfter(long afterId, int limit) {
+        String sql = "select id, app_id, uri_id, ip_id, timestamp from hits " +
+                "where id > :afterId order by id limit :limit";
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("afterId", afterId)
+                .addValue("limit", limit);
+        return jdbcTemplate.query(sql, parameters, (rs, rowNum) -> {
+            EndpointHit hit = new EndpointHit();
+            hit.setId(rs.getLong("id"));
+            hit.setAppId(rs.getInt("app_id"));
+            hit.setUriId(rs.getInt("uri_id"));
+            hit.setIpId(rs.getInt("ip_id"));
+            hit.setTimestamp(rs.getTimestamp("timestamp").toInstant());
+            return hit;
+        });
+    }
+
+    @Override
+    public long maxId() {
+        Long id = jdbcTemplate.getJdbcTemplate().queryForObject("select max(id) from hits", Long.class);
+        return id == null ? 0 : id;
+    }
+
+    // Для курсора в PostgreSQL вызывать внутри транзакции
+    @Override
+    public void scanDistinctIps(Instant from, Instant to, Set<Integer> uriIds, int chunkSize,
+                                Consumer<List<EndpointHit>> consumer) {
+        String sql = "select distinct app_id, uri_id, ip_id from hits " +
+                "where timestamp >= :from and timestamp < :to " +
+                (uriIds.isEmpty() ? "" : "and uri_id in (:uriIds) ");
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("from", Timestamp.from(from))
+                .addValue("to", Timestamp.from(to))
+                .addValue("uriIds", uriIds);
+        List<EndpointHit> chunk = new ArrayList<>(chunkSize);
+        cursorJdbcTemplate.query(sql, parameters, rs -> {
+            EndpointHit hit = new EndpointHit();
+            hit.setAppId(rs.getInt("app_id"));
+            hit.setUriId(rs.getInt("uri_id"));
+            hit.setIpId(rs.getInt("ip_id"));
+            chunk.add(hit);
+            if (chunk.size() == chunkSize) {
+                consumer.accept(chunk);
+                chunk.clear();
+            }
+        });
+        if (!chunk.isEmpty()) {
+            consumer.accept(chunk);
+        }
+    }
+
+    // Для курсора в PostgreSQL вызывать внутри транзакции
+    @Override
+    public void streamCounts(Instant from, Instant to, Set<Integer> uriIds, boolean unique,
+                             Consumer<HitCount> consumer) {
+        String sql = "select app_id, uri_id, " + (unique ? "count(distinct ip_id)" : "count(id)") + " as hits " +
+                "from hits " +
+                "where timestamp >= :from and timestamp < :to " +
+                (uriIds.isEmpty() ? "" : "and uri_id in (:uriIds) ") +
+                "group by app_id, uri_id " +
+                "order by hits desc";
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("from", Timestamp.from(from))
+                .addValue("to", Timestamp.from(to))
+                .addValue("uriIds", uriIds);
+        cursorJdbcTemplate.query(sql, parameters, rs -> {
+            consumer.accept(new HitCount(rs.getInt("app_id"), rs.getInt("uri_id"), rs.getLong("hits")));
+        });
+    }
+
+    private SqlParameterSource toParameters(EndpointHit hit) {
+        return new MapSqlParameterSource()
+                .addValue("appId", hit.getAppId())
+                .addValue("uriId", hit.getUriId())
+                .addValue("ipId", hit.getIpId())
+                .addValue("timestamp", Timestamp.from(hit.getTimestamp()));
+    }
+}
@@ -0,0 +1,50 @@
+package ru.practicum.stats.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.model.HitCount;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+public interface HitRepository extends JpaRepository<EndpointHit, Long>, HitBatchRepository {
+    @Query("select new ru.practicum.stats.model.HitCount(h.appId, h.uriId, count(h.id)) " +
+            "from EndpointHit as h " +
+            "where 1=1 " +
+            "and h.timestamp >= ?1 " +
+            "and h.timestamp < ?2 " +
+            "group by h.appId, h.uriId " +
+            "order by count(h.id) desc")
+    List<HitCount> countHitsByAppAndUri(Instant start, Instant end);
+
+    @Query("select new ru.practicum.stats.model.HitCount(h.appId, h.uriId, count(h.id)) " +
+            "from EndpointHit as h " +
+            "where 1=1 " +
+            "and h.uriId in (?3) " +
+            "and h.timestamp >= ?1 " +
+            "and h.timestamp < ?2 " +
+            "group by h.appId, h.uriId " +
+            "order by count(h.id) desc")
+    List<HitCount> countHitsByAppAndUri(Instant start, Instant end, Set<Integer> uriIds);
+
+    @Query("select new ru.practicum.stats.model.HitCount(h.appId, h.uriId, count(distinct h.ipId)) " +
+            "from EndpointHit as h " +
+            "where 1=1 " +
+            "and h.timestamp >= ?1 " +
+            "and h.timestamp < ?2 " +
+            "group by h.appId, h.uriId " +
+            "order by count(h.id) desc")
+    List<HitCount> countHitsByAppAndUriAndUniqueIp(Instant start, Instant end);
+
+    @Query("select new ru.practicum.stats.model.HitCount(h.appId, h.uriId, count(distinct h.ipId)) " +
+            "from EndpointHit as h " +
+            "where 1=1 " +
+            "and h.uriId in (?3) " +
+            "and h.timestamp >= ?1 " +
+            "and h.timestamp < ?2 " +
+            "group by h.appId, h.uriId " +
+            "order by count(h.id) desc")
+    List<HitCount> countHitsByAppAndUriAndUniqueIp(Instant start, Instant end, Set<Integer> uriIds);
+}
\ No newline at end of file
@@ -0,0 +1,35 @@
+package ru.practicum.stats.rollup;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+@Getter
+@RequiredArgsConstructor
+public enum RollupGranularity {
+    MINUTE(ChronoUnit.MINUTES, "hits_minute"),
+    HOUR(ChronoUnit.HOURS, "hits_hour"),
+    DAY(ChronoUnit.DAYS, "hits_day");
+
+    private final ChronoUnit unit;
+    private final String table;
+
+    public Instant floor(Instant instant) {
+        return instant.truncatedTo(unit);
+    }
+
+    public Instant ceil(Instant instant) {
+        Instant floor = floor(instant);
+        return floor.equals(instant) ? floor : floor.plus(1, unit);
+    }
+
+    public RollupGranularity finer() {
+        return switch (this) {
+            case DAY -> HOUR;
+            case HOUR -> MINUTE;
+            case MINUTE -> null;
+        };
+    }
+}
@@ -0,0 +1,110 @@
+package ru.practicum.stats.rollup;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.model.HitCount;
+import ru.practicum.stats.repository.DatabasePlatform;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+@Repository
+public class RollupRepository {
+
+    private static final Comparator<RollupKey> KEY_ORDER = Comparator.comparingInt(RollupKey::appId)
+            .thenComparingInt(RollupKey::uriId)
+            .thenComparing(RollupKey::bucket);
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final DatabasePlatform platform;
+
+    public RollupRepository(NamedParameterJdbcTemplate jdbcTemplate, DataSource dataSource) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.platform = DatabasePlatform.of(dataSource);
+    }
+
+    public void increment(List<EndpointHit> hits) {
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            // сортировка ключей исключает взаимные блокировки параллельных upsert
+            Map<RollupKey, Long> counts = new TreeMap<>(KEY_ORDER);
+            for (EndpointHit hit : hits) {
+                RollupKey key = new RollupKey(hit.getAppId(), hit.getUriId(), granularity.floor(hit.getTimestamp()));
+                counts.merge(key, 1L, Long::sum);
+            }
+            SqlParameterSource[] parameters = counts.entrySet().stream()
+                    .map(entry -> new MapSqlParameterSource()
+                            .addValue("appId", entry.getKey().appId())
+                            .addValue("uriId", entry.getKey().uriId())
+                            .addValue("bucket", Timestamp.from(entry.getKey().bucket()))
+                            .addValue("hits", entry.getValue()))
+                    .toArray(SqlParameterSource[]::new);
+            jdbcTemplate.batchUpdate(upsertSql(granularity.getTable()), parameters);
+        }
+    }
+
+    public List<HitCount> sumHits(RollupGranularity granularity, Instant from, Instant to, Set<Integer> uriIds) {
+        String sql = "select app_id, uri_id, sum(hits) as hits from " + granularity.getTable() + " " +
+                "where bucket >= :from and bucket < :to " +
+                (uriIds.isEmpty() ? "" : "and uri_id in (:uriIds) ") +
+                "group by app_id, uri_id";
+        return jdbcTemplate.query(sql, rangeParameters(from, to, uriIds), (rs, rowNum) ->
+                new HitCount(rs.getInt("app_id"), rs.getInt("uri_id"), rs.getLong("hits")));
+    }
+
+    public boolean isEmpty() {
+        return jdbcTemplate.getJdbcTemplate().queryForList("select 1 from hits_day limit 1").isEmpty();
+    }
+
+    public Optional<RollupState> findState() {
+        return jdbcTemplate.getJdbcTemplate().query("select live, last_hit_id from rollup_state where id = 1",
+                (rs, rowNum) -> new RollupState(rs.getBoolean("live"), rs.getLong("last_hit_id"))).stream().findFirst();
+    }
+
+    public void saveState(RollupState state) {
+        String sql = platform == DatabasePlatform.POSTGRESQL
+                ? "insert into rollup_state (id, live, last_hit_id) values (1, :live, :lastHitId) " +
+                "on conflict (id) do update set live = excluded.live, last_hit_id = excluded.last_hit_id"
+                : "merge into rollup_state key (id) values (1, :live, :lastHitId)";
+        jdbcTemplate.update(sql, new MapSqlParameterSource()
+                .addValue("live", state.live())
+                .addValue("lastHitId", state.lastHitId()));
+    }
+
+    private MapSqlParameterSource rangeParameters(Instant from, Instant to, Set<Integer> uriIds) {
+        return new MapSqlParameterSource()
+                .addValue("from", Timestamp.from(from))
+                .addValue("to", Timestamp.from(to))
+                .addValue("uriIds", uriIds);
+    }
+
+    private String upsertSql(String table) {
+        if (platform == DatabasePlatform.POSTGRESQL) {
+            return "insert into " + table + " (app_id, uri_id, bucket, hits) " +
+                    "values (:appId, :uriId, :bucket, :hits) " +
+                    "on conflict (app_id, uri_id, bucket) do update set hits = " + table + ".hits + excluded.hits";
+        }
+        return "merge into " + table + " t " +
+                "using (values (cast(:appId as int), cast(:uriId as int), cast(:bucket as timestamp), " +
+                "cast(:hits as bigint))) s (app_id, uri_id, bucket, hits) " +
+                "on t.app_id = s.app_id and t.uri_id = s.uri_id and t.bucket = s.bucket " +
+                "when matched then update set hits = t.hits + s.hits " +
+                "when not matched then insert (app_id, uri_id, bucket, hits) " +
+                "values (s.app_id, s.uri_id, s.bucket, s.hits)";
+    }
+
+    public record RollupState(boolean live, long lastHitId) {
+    }
+
+    private record RollupKey(int appId, int uriId, Instant bucket) {
+    }
+}
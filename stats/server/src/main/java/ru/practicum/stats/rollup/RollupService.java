@@ -0,0 +1,137 @@
+package ru.practicum.stats.rollup;
+
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats.dictionary.HitDictionary;
+import ru.practicum.stats.ingest.HitListener;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.model.HitCount;
+import ru.practicum.stats.model.ViewStats;
+import ru.practicum.stats.rollup.RollupRepository.RollupState;
+import ru.practicum.stats.store.HitStore;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RollupService implements HitListener {
+
+    private final RollupRepository rollupRepository;
+    private final HitStore hitStore;
+    private final TransactionTemplate transactionTemplate;
+    private final HitDictionary hitDictionary;
+    @Getter
+    @Value("${stats.rollup.enabled:false}")
+    private final boolean enabled;
+    @Value("${stats.rollup.backfill-chunk-size:10000}")
+    private final int backfillChunkSize;
+
+    // С выключенными агрегатами запоминается последний учтенный в них хит; при включении они дополняются
+    // хитами после него пакетами в отдельных транзакциях, прерванное дополнение продолжается со следующего запуска
+    @PostConstruct
+    public void backfill() {
+        Optional<RollupState> state = rollupRepository.findState();
+        // агрегаты без сохраненного состояния велись с момента создания таблиц либо пусты
+        boolean live = state.map(RollupState::live).orElseGet(() -> !rollupRepository.isEmpty());
+        if (!enabled) {
+            if (live) {
+                long lastHitId = hitStore.maxId();
+                rollupRepository.saveState(new RollupState(false, lastHitId));
+                log.info("Rollups are disabled, hits after id={} will be backfilled when enabled", lastHitId);
+            }
+            return;
+        }
+        if (live) {
+            if (state.isEmpty()) {
+                rollupRepository.saveState(new RollupState(true, hitStore.maxId()));
+            }
+            return;
+        }
+        long lastHitId = state.map(RollupState::lastHitId).orElse(0L);
+        log.info("Backfilling rollups from hits after id={}", lastHitId);
+        long backfilled = 0;
+        while (true) {
+            List<EndpointHit> chunk = hitStore.findAfter(lastHitId, backfillChunkSize);
+            if (chunk.isEmpty()) {
+                break;
+            }
+            long chunkLastId = chunk.get(chunk.size() - 1).getId();
+            transactionTemplate.executeWithoutResult(status -> {
+                rollupRepository.increment(chunk);
+                rollupRepository.saveState(new RollupState(false, chunkLastId));
+            });
+            lastHitId = chunkLastId;
+            backfilled += chunk.size();
+        }
+        rollupRepository.saveState(new RollupState(true, lastHitId));
+        log.info("Rollups are backfilled, hits={}", backfilled);
+    }
+
+    @Override
+    public void onHits(List<EndpointHit> hits) {
+        if (enabled && !hits.isEmpty()) {
+            rollupRepository.increment(hits);
+        }
+    }
+
+    @Override
+    public boolean isTransactional() {
+        return true;
+    }
+
+    // Окно [start, end] включительно; время хитов хранится с точностью до секунды
+    public List<ViewStats> countHits(Instant start, Instant end, Set<String> uris) {
+        Set<Integer> uriIds = hitDictionary.findUriIds(uris);
+        if (!uris.isEmpty() && uriIds.isEmpty()) {
+            return List.of();
+        }
+        Map<HitCountKey, Long> counts = new HashMap<>();
+        cover(start, end.plusSeconds(1), RollupGranularity.DAY, uriIds, counts);
+        List<HitCount> hitCounts = counts.entrySet().stream()
+                .map(entry -> new HitCount(entry.getKey().appId(), entry.getKey().uriId(), entry.getValue()))
+                .sorted(Comparator.comparing(HitCount::getHits).reversed())
+                .toList();
+        return hitDictionary.toViewStats(hitCounts);
+    }
+
+    private void cover(Instant from, Instant to, RollupGranularity granularity, Set<Integer> uriIds,
+                       Map<HitCountKey, Long> counts) {
+        if (!from.isBefore(to)) {
+            return;
+        }
+        if (granularity == null) {
+            add(hitStore.aggregate(from, to, uriIds, false), counts);
+            return;
+        }
+        Instant alignedFrom = granularity.ceil(from);
+        Instant alignedTo = granularity.floor(to);
+        if (!alignedFrom.isBefore(alignedTo)) {
+            cover(from, to, granularity.finer(), uriIds, counts);
+            return;
+        }
+        cover(from, alignedFrom, granularity.finer(), uriIds, counts);
+        add(rollupRepository.sumHits(granularity, alignedFrom, alignedTo, uriIds), counts);
+        cover(alignedTo, to, granularity.finer(), uriIds, counts);
+    }
+
+    private void add(List<HitCount> hitCounts, Map<HitCountKey, Long> counts) {
+        for (HitCount hitCount : hitCounts) {
+            counts.merge(new HitCountKey(hitCount.getAppId(), hitCount.getUriId()), hitCount.getHits(), Long::sum);
+        }
+    }
+
+    private record HitCountKey(int appId, int uriId) {
+    }
+}
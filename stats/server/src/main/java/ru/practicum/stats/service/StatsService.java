@@ -0,0 +1,256 @@
+package ru.practicum.stats.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.ewm.dto.EndpointHitDto;
+import ru.practicum.ewm.dto.GetStatsRequest;
+import ru.practicum.ewm.dto.NewEndpointHitRequestDto;
+import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.stats.cache.StatsResultCache;
+import ru.practicum.stats.dictionary.HitDictionary;
+import ru.practicum.stats.exception.ValidationException;
+import ru.practicum.stats.hot.HotWindow;
+import ru.practicum.stats.ingest.HitWriter;
+import ru.practicum.stats.mapper.EndpointHitMapper;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.model.HitCount;
+import ru.practicum.stats.model.ViewStats;
+import ru.practicum.stats.rollup.RollupService;
+import ru.practicum.stats.store.HitStore;
+import ru.practicum.stats.top.TopHitsIndex;
+import ru.practicum.stats.unique.UniqueIpIndex;
+import ru.practicum.ewm.utils.DateMapper;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class StatsService {
+
+    private static final int STREAM_CHUNK_SIZE = 1000;
+
+    private final HitStore hitStore;
+    private final HitWriter hitWriter;
+    private final RollupService rollupService;
+    private final UniqueIpIndex uniqueIpIndex;
+    private final HitDictionary hitDictionary;
+    private final HotWindow hotWindow;
+    private final TopHitsIndex topHitsIndex;
+    private final StatsResultCache statsResultCache;
+    private final EndpointHitMapper endpointHitMapper;
+    private final DateMapper dateMapper;
+    @Value("${stats.hits.max-batch-size:10000}")
+    private final int maxBatchSize;
+    @Value("${stats.query.max-windows:1000}")
+    private final int maxQueryWindows;
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public EndpointHitDto create(NewEndpointHitRequestDto request) {
+        EndpointHit hit = endpointHitMapper.toHit(request);
+        hit.setTimestamp(timestampOf(request, dateMapper.now()));
+        hit = hitWriter.write(hit);
+        return endpointHitMapper.toDto(hit);
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<EndpointHitDto> createAll(List<NewEndpointHitRequestDto> requests) {
+        if (requests.size() > maxBatchSize) {
+            String errorMessage = String.format("Too many hits in batch, size=%d, max=%d", requests.size(), maxBatchSize);
+            log.error(errorMessage);
+            throw new ValidationException(errorMessage);
+        }
+        Instant now = dateMapper.now();
+        List<EndpointHit> hits = requests.stream()
+                .map(request -> {
+                    EndpointHit hit = endpointHitMapper.toHit(request);
+                    hit.setTimestamp(timestampOf(request, now));
+                    return hit;
+                })
+                .toList();
+        return hitWriter.writeAll(hits).stream()
+                .map(endpointHitMapper::toDto)
+                .toList();
+    }
+
+    public List<ViewStatsDto> getStats(GetStatsRequest request) {
+        return getStats(request, false);
+    }
+
+    public List<ViewStatsDto> getStats(GetStatsRequest request, boolean exact) {
+        validateRequest(request);
+        Function<GetStatsRequest, List<ViewStats>> countHits;
+        if (request.getUnique() && !exact && uniqueIpIndex.covers(request.getStart())) {
+            countHits = (r) -> uniqueIpIndex.countUniqueHits(r.getStart(), r.getEnd(), r.getUris());
+        } else if (statsResultCache.isEnabled()) {
+            countHits = (r) -> statsResultCache.get(r, (start, end) -> r.getUnique()
+                    ? countUniqueHits(start, end, r.getUris())
+                    : countHits(start, end, r.getUris()));
+        } else if (request.getUnique()) {
+            countHits = (r) -> countUniqueHits(r.getStart(), r.getEnd(), r.getUris());
+        } else  {
+            countHits = (r) -> countHits(r.getStart(), r.getEnd(), r.getUris());
+        }
+        return countHits.apply(request).stream()
+                .map(endpointHitMapper::toDto)
+                .toList();
+    }
+
+    // Несколько окон за один вызов; результаты в порядке окон
+    public List<List<ViewStatsDto>> query(List<GetStatsRequest> requests) {
+        if (requests.size() > maxQueryWindows) {
+            String errorMessage = String.format("Too many windows in query, size=%d, max=%d", requests.size(),
+                    maxQueryWindows);
+            log.error(errorMessage);
+            throw new ValidationException(errorMessage);
+        }
+        return requests.stream()
+                .map(this::getStats)
+                .toList();
+    }
+
+    // Потоковая выдача: строки читаются курсором и передаются пачками, весь результат в памяти не собирается
+    public void streamStats(GetStatsRequest request, Consumer<ViewStatsDto> consumer) {
+        validateRequest(request);
+        Set<Integer> uriIds = hitDictionary.findUriIds(request.getUris());
+        if (!request.getUris().isEmpty() && uriIds.isEmpty()) {
+            return;
+        }
+        List<HitCount> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+        hitStore.streamAggregate(request.getStart(), request.getEnd().plusSeconds(1), uriIds, request.getUnique(),
+                hitCount -> {
+                    chunk.add(hitCount);
+                    if (chunk.size() == STREAM_CHUNK_SIZE) {
+                        writeChunk(chunk, consumer);
+                    }
+                });
+        writeChunk(chunk, consumer);
+    }
+
+    public List<ViewStatsDto> getTop(Instant start, Instant end, int k) {
+        validateRequest(new GetStatsRequest(start, end, Set.of(), false));
+        List<HitCount> top;
+        if (topHitsIndex.isEnabled()) {
+            if (k > topHitsIndex.getCapacity()) {
+                String errorMessage = String.format("Top size should not exceed %d, k=%d", topHitsIndex.getCapacity(), k);
+                log.error(errorMessage);
+                throw new ValidationException(errorMessage);
+            }
+            top = topHitsIndex.top(start, end, k);
+        } else {
+            top = hitStore.aggregate(start, end.plusSeconds(1), Set.of(), false).stream()
+                    .limit(k)
+                    .toList();
+        }
+        return hitDictionary.toViewStats(top).stream()
+                .map(endpointHitMapper::toDto)
+                .toList();
+    }
+
+    public void validateRequest(GetStatsRequest request) {
+        if (request.getStart().isAfter(request.getEnd())) {
+            String errorMessage = String.format("Start date should be before end date, start=%s, end=%s", request.getStart(), request.getEnd());
+            log.error(errorMessage);
+            throw new ValidationException(errorMessage);
+        }
+    }
+
+    // Время из запроса принимается для хитов, отправленных клиентом с задержкой; будущее время не допускается
+    private Instant timestampOf(NewEndpointHitRequestDto request, Instant now) {
+        if (request.getTimestamp() == null) {
+            return now;
+        }
+        try {
+            Instant timestamp = dateMapper.toInstant(request.getTimestamp());
+            return timestamp.isAfter(now) ? now : timestamp;
+        } catch (DateTimeParseException e) {
+            String errorMessage = String.format("Invalid hit timestamp %s", request.getTimestamp());
+            log.error(errorMessage);
+            throw new ValidationException(errorMessage);
+        }
+    }
+
+    private void writeChunk(List<HitCount> chunk, Consumer<ViewStatsDto> consumer) {
+        hitDictionary.toViewStats(chunk).forEach(viewStats -> consumer.accept(endpointHitMapper.toDto(viewStats)));
+        chunk.clear();
+    }
+
+    // Уникальные ip нельзя сложить по частям окна, поэтому горячее окно используется, только если покрывает его целиком
+    private List<ViewStats> countUniqueHits(Instant start, Instant end, Set<String> uris) {
+        if (hotWindow.covers(start)) {
+            HotWindow.HotCounts hot = countHot(start, end, uris, true);
+            if (hot != null && !hot.horizon().isAfter(start)) {
+                return sorted(hitDictionary.toViewStats(hot.counts()));
+            }
+        }
+        return aggregate(start, end, uris, true);
+    }
+
+    // Свежая часть окна считается в памяти, более старая - по агрегатам или хранилищу
+    private List<ViewStats> countHits(Instant start, Instant end, Set<String> uris) {
+        if (!hotWindow.isEnabled()) {
+            return countColdHits(start, end, uris);
+        }
+        HotWindow.HotCounts hot = countHot(start, end, uris, false);
+        if (hot == null) {
+            return List.of();
+        }
+        Map<List<String>, Long> counts = new HashMap<>();
+        List<ViewStats> parts = new ArrayList<>(hitDictionary.toViewStats(hot.counts()));
+        if (start.isBefore(hot.horizon())) {
+            Instant coldEnd = hot.horizon().isAfter(end) ? end : hot.horizon().minusSeconds(1);
+            parts.addAll(countColdHits(start, coldEnd, uris));
+        }
+        for (ViewStats viewStats : parts) {
+            counts.merge(List.of(viewStats.getApp(), viewStats.getUri()), viewStats.getHits(), Long::sum);
+        }
+        return sorted(counts.entrySet().stream()
+                .map(entry -> new ViewStats(entry.getKey().get(0), entry.getKey().get(1), entry.getValue()))
+                .toList());
+    }
+
+    private List<ViewStats> countColdHits(Instant start, Instant end, Set<String> uris) {
+        if (rollupService.isEnabled()) {
+            return rollupService.countHits(start, end, uris);
+        }
+        return aggregate(start, end, uris, false);
+    }
+
+    private HotWindow.HotCounts countHot(Instant start, Instant end, Set<String> uris, boolean unique) {
+        Set<Integer> uriIds = hitDictionary.findUriIds(uris);
+        if (!uris.isEmpty() && uriIds.isEmpty()) {
+            return null;
+        }
+        return hotWindow.count(start, end.plusSeconds(1), uriIds, unique);
+    }
+
+    private List<ViewStats> aggregate(Instant start, Instant end, Set<String> uris, boolean unique) {
+        Set<Integer> uriIds = hitDictionary.findUriIds(uris);
+        if (!uris.isEmpty() && uriIds.isEmpty()) {
+            return List.of();
+        }
+        // окно [start, end] включительно, время хитов хранится с точностью до секунды
+        Instant to = end.plusSeconds(1);
+        return hitDictionary.toViewStats(hitStore.aggregate(start, to, uriIds, unique));
+    }
+
+    private List<ViewStats> sorted(List<ViewStats> stats) {
+        return stats.stream()
+                .sorted(Comparator.comparing(ViewStats::getHits).reversed())
+                .toList();
+    }
+}
@@ -0,0 +1,37 @@
+package ru.practicum.stats.store;
+
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.model.HitCount;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+// Хранилище хитов: окна [from, to), пустой uriIds - все uri
+public interface HitStore {
+    List<EndpointHit> append(List<EndpointHit> hits);
+
+    List<HitCount> aggregate(Instant from, Instant to, Set<Integer> uriIds, boolean unique);
+
+    // Пары (app, uri, ip) окна пачками по chunkSize, не накапливая результат; пары могут повторяться
+    void scanDistinctIps(Instant from, Instant to, Set<Integer> uriIds, int chunkSize,
+                         Consumer<List<EndpointHit>> consumer);
+
+    void scan(int chunkSize, Consumer<List<EndpointHit>> consumer);
+
+    // Хиты с временем не раньше from, для восстановления индексов в памяти за их горизонт
+    void scan(Instant from, int chunkSize, Consumer<List<EndpointHit>> consumer);
+
+    // Наибольший id записанного хита, 0 - хитов нет
+    long maxId();
+
+    // Хиты с id больше afterId по возрастанию id, не больше limit; значения словарей не заполняются
+    List<EndpointHit> findAfter(long afterId, int limit);
+
+    // Результат aggregate построчно, по убыванию hits
+    default void streamAggregate(Instant from, Instant to, Set<Integer> uriIds, boolean unique,
+                                 Consumer<HitCount> consumer) {
+        aggregate(from, to, uriIds, unique).forEach(consumer);
+    }
+}
@@ -0,0 +1,86 @@
+package ru.practicum.stats.store;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.dictionary.HitDictionary;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.model.HitCount;
+import ru.practicum.stats.repository.HitRepository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "stats.store", havingValue = "jpa", matchIfMissing = true)
+public class JpaHitStore implements HitStore {
+
+    private final HitRepository hitRepository;
+    private final HitDictionary hitDictionary;
+
+    @Override
+    public List<EndpointHit> append(List<EndpointHit> hits) {
+        hitDictionary.encode(hits);
+        return hitRepository.insertAll(hits);
+    }
+
+    @Override
+    public List<HitCount> aggregate(Instant from, Instant to, Set<Integer> uriIds, boolean unique) {
+        if (unique) {
+            return uriIds.isEmpty()
+                    ? hitRepository.countHitsByAppAndUriAndUniqueIp(from, to)
+                    : hitRepository.countHitsByAppAndUriAndUniqueIp(from, to, uriIds);
+        }
+        return uriIds.isEmpty()
+                ? hitRepository.countHitsByAppAndUri(from, to)
+                : hitRepository.countHitsByAppAndUri(from, to, uriIds);
+    }
+
+    // Для курсора в PostgreSQL вызывать внутри транзакции
+    @Override
+    public void scanDistinctIps(Instant from, Instant to, Set<Integer> uriIds, int chunkSize,
+                                Consumer<List<EndpointHit>> consumer) {
+        hitRepository.scanDistinctIps(from, to, uriIds, chunkSize, chunk -> {
+            hitDictionary.decode(chunk);
+            consumer.accept(chunk);
+        });
+    }
+
+    @Override
+    public long maxId() {
+        return hitRepository.maxId();
+    }
+
+    @Override
+    public List<EndpointHit> findAfter(long afterId, int limit) {
+        return hitRepository.findAfter(afterId, limit);
+    }
+
+    // Для курсора в PostgreSQL вызывать внутри транзакции
+    @Override
+    public void streamAggregate(Instant from, Instant to, Set<Integer> uriIds, boolean unique,
+                                Consumer<HitCount> consumer) {
+        hitRepository.streamCounts(from, to, uriIds, unique, consumer);
+    }
+
+    // Для курсора в PostgreSQL вызывать внутри транзакции
+    @Override
+    public void scan(int chunkSize, Consumer<List<EndpointHit>> consumer) {
+        hitRepository.scanAll(chunkSize, chunk -> {
+            hitDictionary.decode(chunk);
+            consumer.accept(chunk);
+        });
+    }
+
+    // Для курсора в PostgreSQL вызывать внутри транзакции
+    @Override
+    public void scan(Instant from, int chunkSize, Consumer<List<EndpointHit>> consumer) {
+        hitRepository.scanFrom(from, chunkSize, chunk -> {
+            hitDictionary.decode(chunk);
+            consumer.accept(chunk);
+        });
+    }
+}
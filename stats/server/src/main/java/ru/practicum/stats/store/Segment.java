@@ -0,0 +1,202 @@
+package ru.practicum.stats.store;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import ru.practicum.stats.model.EndpointHit;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+// Сегмент журнала хитов в отображаемом в память файле.
+// Заголовок: magic, емкость и число записей. Запись фиксированной длины:
+// время в секундах (long), app_id, uri_id, ip_id (int).
+// Число записей в заголовке меняется только в force(), после сброса самих записей на диск,
+// поэтому заголовок не указывает на записи, которых на диске нет.
+@Slf4j
+class Segment implements AutoCloseable {
+
+    static final String SUFFIX = ".seg";
+
+    private static final int MAGIC = 0x48495453;
+    private static final int HEADER_SIZE = 16;
+    private static final int COUNT_OFFSET = 8;
+    private static final int RECORD_SIZE = 20;
+    // записей на один элемент разреженного индекса по времени
+    private static final int BLOCK_SIZE = 1024;
+
+    @Getter
+    private final long baseId;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final long[] blockMin;
+    private final long[] blockMax;
+    private volatile int count;
+    // записи, сброшенные на диск и учтенные в заголовке
+    private int durable;
+
+    private Segment(long baseId, FileChannel channel, int capacity) throws IOException {
+        this.baseId = baseId;
+        this.channel = channel;
+        this.capacity = capacity;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * RECORD_SIZE);
+        int blocks = (capacity + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        this.blockMin = new long[blocks];
+        this.blockMax = new long[blocks];
+        Arrays.fill(blockMin, Long.MAX_VALUE);
+        Arrays.fill(blockMax, Long.MIN_VALUE);
+    }
+
+    static Segment create(Path directory, long baseId, int capacity) throws IOException {
+        Path path = directory.resolve(String.format("%020d%s", baseId, SUFFIX));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        Segment segment = new Segment(baseId, channel, capacity);
+        segment.buffer.putInt(0, MAGIC);
+        segment.buffer.putInt(4, capacity);
+        segment.buffer.putInt(COUNT_OFFSET, 0);
+        segment.buffer.force(0, HEADER_SIZE);
+        return segment;
+    }
+
+    static Segment open(Path path) throws IOException {
+        String fileName = path.getFileName().toString();
+        long baseId = Long.parseLong(fileName.substring(0, fileName.length() - SUFFIX.length()));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+        if (header.getInt(0) != MAGIC) {
+            channel.close();
+            throw new IOException("Not a hit segment: " + path);
+        }
+        int capacity = header.getInt(4);
+        int count = header.getInt(COUNT_OFFSET);
+        if (capacity <= 0 || channel.size() < HEADER_SIZE + (long) capacity * RECORD_SIZE
+                || count < 0 || count > capacity) {
+            channel.close();
+            throw new IOException(String.format("Corrupted hit segment header: %s, capacity=%d, count=%d",
+                    path, capacity, count));
+        }
+        Segment segment = new Segment(baseId, channel, capacity);
+        int valid = 0;
+        while (valid < count && segment.isValid(valid)) {
+            segment.index(valid, segment.buffer.getLong(position(valid)));
+            valid++;
+        }
+        // записи после первой недописанной отбрасываются, их id выдаются заново
+        if (valid < count) {
+            log.warn("Hit segment {} is truncated from {} to {} records", path, count, valid);
+            segment.buffer.putInt(COUNT_OFFSET, valid);
+            segment.buffer.force(0, HEADER_SIZE);
+        }
+        segment.count = valid;
+        segment.durable = valid;
+        return segment;
+    }
+
+    boolean isFull() {
+        return count == capacity;
+    }
+
+    long nextId() {
+        return baseId + count;
+    }
+
+    // Дописывает хиты начиная с from, пока есть место; возвращает число записанных
+    int append(List<EndpointHit> hits, int from) {
+        int index = count;
+        int written = Math.min(hits.size() - from, capacity - index);
+        for (int i = 0; i < written; i++, index++) {
+            EndpointHit hit = hits.get(from + i);
+            int position = position(index);
+            long timestamp = hit.getTimestamp().getEpochSecond();
+            buffer.putLong(position, timestamp);
+            buffer.putInt(position + 8, hit.getAppId());
+            buffer.putInt(position + 12, hit.getUriId());
+            buffer.putInt(position + 16, hit.getIpId());
+            index(index, timestamp);
+            hit.setId(baseId + index);
+        }
+        // публикация count делает записи видимыми читателям
+        count = index;
+        return written;
+    }
+
+    // Обходит записи с временем в [from, to), пропуская блоки вне окна по разреженному индексу
+    void forEach(long from, long to, RecordConsumer consumer) {
+        int size = count;
+        for (int block = 0; block * BLOCK_SIZE < size; block++) {
+            if (blockMax[block] < from || blockMin[block] >= to) {
+                continue;
+            }
+            int end = Math.min(size, (block + 1) * BLOCK_SIZE);
+            for (int index = block * BLOCK_SIZE; index < end; index++) {
+                int position = position(index);
+                long timestamp = buffer.getLong(position);
+                if (timestamp >= from && timestamp < to) {
+                    consumer.accept(baseId + index, timestamp, buffer.getInt(position + 8),
+                            buffer.getInt(position + 12), buffer.getInt(position + 16));
+                }
+            }
+        }
+    }
+
+    // Записи с id от fromId, не больше limit
+    void read(long fromId, int limit, RecordConsumer consumer) {
+        int size = count;
+        int from = (int) Math.max(0, fromId - baseId);
+        int end = (int) Math.min(size, (long) from + limit);
+        for (int index = from; index < end; index++) {
+            int position = position(index);
+            consumer.accept(baseId + index, buffer.getLong(position), buffer.getInt(position + 8),
+                    buffer.getInt(position + 12), buffer.getInt(position + 16));
+        }
+    }
+
+    int unforced() {
+        return count - durable;
+    }
+
+    // Сначала на диск сбрасываются записи, затем заголовок с их числом
+    synchronized void force() {
+        int size = count;
+        if (size == durable) {
+            return;
+        }
+        buffer.force(position(durable), (size - durable) * RECORD_SIZE);
+        buffer.putInt(COUNT_OFFSET, size);
+        buffer.force(0, HEADER_SIZE);
+        durable = size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    // Идентификаторы словарей начинаются с 1, нулевые - признак незаписанной страницы
+    private boolean isValid(int index) {
+        int position = position(index);
+        return buffer.getInt(position + 8) > 0 && buffer.getInt(position + 12) > 0 && buffer.getInt(position + 16) > 0;
+    }
+
+    private void index(int index, long timestamp) {
+        int block = index / BLOCK_SIZE;
+        blockMin[block] = Math.min(blockMin[block], timestamp);
+        blockMax[block] = Math.max(blockMax[block], timestamp);
+    }
+
+    private static int position(int index) {
+        return HEADER_SIZE + index * RECORD_SIZE;
+    }
+
+    @FunctionalInterface
+    interface RecordConsumer {
+        void accept(long id, long timestamp, int appId, int uriId, int ipId);
+    }
+}
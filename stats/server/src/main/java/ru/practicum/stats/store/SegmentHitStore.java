@@ -0,0 +1,272 @@
+package ru.practicum.stats.store;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.stats.dictionary.HitDictionary;
+import ru.practicum.stats.exception.InternalServerException;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.model.HitCount;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Встроенное хранилище: журнал хитов из сегментных файлов только на дозапись.
+// Записи попадают в page cache сразу, на диск - каждые force-records записей, раз в force-interval-ms,
+// при закрытии сегмента и остановке сервера; при сбое теряются записи после последнего сброса.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stats.store", havingValue = "segment")
+public class SegmentHitStore implements HitStore {
+
+    // ограничение адресации MappedByteBuffer
+    private static final int MAX_SEGMENT_RECORDS = 100_000_000;
+
+    private final HitDictionary hitDictionary;
+    private final Path directory;
+    private final int segmentRecords;
+    private final int forceRecords;
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private final Object appendLock = new Object();
+
+    public SegmentHitStore(
+            HitDictionary hitDictionary,
+            @Value("${stats.store.segment.dir:data/hits}") String directory,
+            @Value("${stats.store.segment.records:4194304}") int segmentRecords,
+            @Value("${stats.store.segment.force-records:0}") int forceRecords
+    ) {
+        if (segmentRecords <= 0 || segmentRecords > MAX_SEGMENT_RECORDS) {
+            throw new InternalServerException("Segment size should be in 1.." + MAX_SEGMENT_RECORDS +
+                    ", records=" + segmentRecords);
+        }
+        this.hitDictionary = hitDictionary;
+        this.directory = Path.of(directory);
+        this.segmentRecords = segmentRecords;
+        this.forceRecords = forceRecords;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : files.filter(file -> file.toString().endsWith(Segment.SUFFIX)).sorted().toList()) {
+                segments.add(Segment.open(path));
+            }
+        }
+        log.info("Hit segments are opened, dir={}, segments={}", directory.toAbsolutePath(), segments.size());
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        synchronized (appendLock) {
+            for (Segment segment : segments) {
+                segment.close();
+            }
+        }
+    }
+
+    // Запись в сегмент не откатывается, поэтому внутри транзакции хиты дописываются после ее фиксации,
+    // раньше уведомления слушателей; id хитам назначаются при дозаписи
+    @Override
+    public List<EndpointHit> append(List<EndpointHit> hits) {
+        hitDictionary.encode(hits);
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public int getOrder() {
+                    return Ordered.HIGHEST_PRECEDENCE;
+                }
+
+                @Override
+                public void afterCommit() {
+                    write(hits);
+                }
+            });
+        } else {
+            write(hits);
+        }
+        return hits;
+    }
+
+    private void write(List<EndpointHit> hits) {
+        synchronized (appendLock) {
+            int written = 0;
+            while (written < hits.size()) {
+                written += tail().append(hits, written);
+            }
+            if (forceRecords > 0 && !segments.isEmpty()) {
+                Segment tail = segments.get(segments.size() - 1);
+                if (tail.unforced() >= forceRecords) {
+                    tail.force();
+                }
+            }
+        }
+    }
+
+    // Закрытые сегменты уже сброшены, несброшенные записи могут быть только в последнем
+    @Scheduled(fixedDelayString = "${stats.store.segment.force-interval-ms:1000}")
+    public void force() {
+        if (!segments.isEmpty()) {
+            segments.get(segments.size() - 1).force();
+        }
+    }
+
+    @Override
+    public List<HitCount> aggregate(Instant from, Instant to, Set<Integer> uriIds, boolean unique) {
+        Map<Long, long[]> counts = new HashMap<>();
+        Map<Long, Set<Integer>> ips = new HashMap<>();
+        forEach(from, to, uriIds, (id, timestamp, appId, uriId, ipId) -> {
+            long key = key(appId, uriId);
+            if (unique) {
+                ips.computeIfAbsent(key, k -> new HashSet<>()).add(ipId);
+            } else {
+                counts.computeIfAbsent(key, k -> new long[1])[0]++;
+            }
+        });
+        List<HitCount> result = new ArrayList<>();
+        if (unique) {
+            ips.forEach((key, values) -> result.add(new HitCount(appId(key), uriId(key), (long) values.size())));
+        } else {
+            counts.forEach((key, value) -> result.add(new HitCount(appId(key), uriId(key), value[0])));
+        }
+        result.sort(Comparator.comparing(HitCount::getHits).reversed());
+        return result;
+    }
+
+    // Записи окна без исключения повторов: скетчам повторный ip не важен
+    @Override
+    public void scanDistinctIps(Instant from, Instant to, Set<Integer> uriIds, int chunkSize,
+                                Consumer<List<EndpointHit>> consumer) {
+        List<EndpointHit> chunk = new ArrayList<>(chunkSize);
+        forEach(from, to, uriIds, (id, timestamp, appId, uriId, ipId) -> {
+            chunk.add(toHit(id, timestamp, appId, uriId, ipId));
+            if (chunk.size() == chunkSize) {
+                hitDictionary.decode(chunk);
+                consumer.accept(chunk);
+                chunk.clear();
+            }
+        });
+        if (!chunk.isEmpty()) {
+            hitDictionary.decode(chunk);
+            consumer.accept(chunk);
+        }
+    }
+
+    @Override
+    public long maxId() {
+        return segments.isEmpty() ? 0 : segments.get(segments.size() - 1).nextId() - 1;
+    }
+
+    // id в сегментах идут подряд, поэтому записи читаются по номеру без обхода сегмента
+    @Override
+    public List<EndpointHit> findAfter(long afterId, int limit) {
+        List<EndpointHit> hits = new ArrayList<>();
+        for (Segment segment : segments) {
+            if (hits.size() == limit) {
+                break;
+            }
+            if (segment.nextId() > afterId + 1) {
+                segment.read(afterId + 1, limit - hits.size(), (id, timestamp, appId, uriId, ipId) ->
+                        hits.add(toHit(id, timestamp, appId, uriId, ipId)));
+            }
+        }
+        return hits;
+    }
+
+    @Override
+    public void scan(int chunkSize, Consumer<List<EndpointHit>> consumer) {
+        scan(Long.MIN_VALUE, chunkSize, consumer);
+    }
+
+    @Override
+    public void scan(Instant from, int chunkSize, Consumer<List<EndpointHit>> consumer) {
+        scan(from.getEpochSecond(), chunkSize, consumer);
+    }
+
+    private void scan(long fromSecond, int chunkSize, Consumer<List<EndpointHit>> consumer) {
+        List<EndpointHit> chunk = new ArrayList<>(chunkSize);
+        for (Segment segment : segments) {
+            segment.forEach(fromSecond, Long.MAX_VALUE, (id, timestamp, appId, uriId, ipId) -> {
+                chunk.add(toHit(id, timestamp, appId, uriId, ipId));
+                if (chunk.size() == chunkSize) {
+                    hitDictionary.decode(chunk);
+                    consumer.accept(chunk);
+                    chunk.clear();
+                }
+            });
+        }
+        if (!chunk.isEmpty()) {
+            hitDictionary.decode(chunk);
+            consumer.accept(chunk);
+        }
+    }
+
+    private void forEach(Instant from, Instant to, Set<Integer> uriIds, Segment.RecordConsumer consumer) {
+        for (Segment segment : segments) {
+            segment.forEach(from.getEpochSecond(), to.getEpochSecond(), (id, timestamp, appId, uriId, ipId) -> {
+                if (uriIds.isEmpty() || uriIds.contains(uriId)) {
+                    consumer.accept(id, timestamp, appId, uriId, ipId);
+                }
+            });
+        }
+    }
+
+    private Segment tail() {
+        Segment tail = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (tail != null && !tail.isFull()) {
+            return tail;
+        }
+        try {
+            Segment segment = Segment.create(directory, tail == null ? 1 : tail.nextId(), segmentRecords);
+            if (tail != null) {
+                tail.force();
+            }
+            segments.add(segment);
+            log.info("Hit segment is created, baseId={}", segment.getBaseId());
+            return segment;
+        } catch (IOException e) {
+            throw new InternalServerException("Could not create hit segment: " + e.getMessage());
+        }
+    }
+
+    private static EndpointHit toHit(long id, long timestamp, int appId, int uriId, int ipId) {
+        EndpointHit hit = new EndpointHit();
+        hit.setId(id);
+        hit.setTimestamp(Instant.ofEpochSecond(timestamp));
+        hit.setAppId(appId);
+        hit.setUriId(uriId);
+        hit.setIpId(ipId);
+        return hit;
+    }
+
+    private static long key(int appId, int uriId) {
+        return ((long) appId << 32) | (uriId & 0xFFFFFFFFL);
+    }
+
+    private static int appId(long key) {
+        return (int) (key >>> 32);
+    }
+
+    private static int uriId(long key) {
+        return (int) key;
+    }
+}
@@ -0,0 +1,112 @@
+package ru.practicum.stats.top;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Space-Saving: не более capacity счетчиков, при вытеснении новый ключ наследует минимальный счетчик.
+// Оценка count завышена не больше чем на error; счетчики хранятся в min-куче по count.
+public class SpaceSaving {
+
+    private final int capacity;
+    private final Map<Long, Counter> counters = new HashMap<>();
+    private final Counter[] heap;
+    private int size;
+
+    public SpaceSaving(int capacity) {
+        this.capacity = capacity;
+        this.heap = new Counter[capacity];
+    }
+
+    public void offer(long key, long weight) {
+        Counter counter = counters.get(key);
+        if (counter != null) {
+            counter.count += weight;
+            siftDown(counter.index);
+            return;
+        }
+        if (size < capacity) {
+            counter = new Counter(key, weight, 0, size);
+            heap[size++] = counter;
+            counters.put(key, counter);
+            siftUp(counter.index);
+            return;
+        }
+        Counter min = heap[0];
+        counters.remove(min.key);
+        min.key = key;
+        min.error = min.count;
+        min.count += weight;
+        counters.put(key, min);
+        siftDown(0);
+    }
+
+    public void merge(SpaceSaving other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.heap[i].key, other.heap[i].count);
+        }
+    }
+
+    public List<Counter> top(int k) {
+        List<Counter> result = new ArrayList<>(Arrays.asList(heap).subList(0, size));
+        result.sort(Comparator.comparingLong(Counter::getCount).reversed());
+        return result.subList(0, Math.min(k, result.size()));
+    }
+
+    private void siftUp(int index) {
+        Counter counter = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (heap[parent].count <= counter.count) {
+                break;
+            }
+            place(heap[parent], index);
+            index = parent;
+        }
+        place(counter, index);
+    }
+
+    private void siftDown(int index) {
+        Counter counter = heap[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1].count < heap[child].count) {
+                child++;
+            }
+            if (counter.count <= heap[child].count) {
+                break;
+            }
+            place(heap[child], index);
+            index = child;
+        }
+        place(counter, index);
+    }
+
+    private void place(Counter counter, int index) {
+        heap[index] = counter;
+        counter.index = index;
+    }
+
+    @Getter
+    public static final class Counter {
+        private long key;
+        private long count;
+        private long error;
+        private int index;
+
+        private Counter(long key, long count, long error, int index) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+            this.index = index;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package ru.practicum.stats.top;
+
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats.exception.ValidationException;
+import ru.practicum.stats.ingest.HitListener;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.model.HitCount;
+import ru.practicum.stats.store.HitStore;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Самые просматриваемые uri: скетчи Space-Saving по часам за retention-hours, края окна - точно из хранилища
+@Slf4j
+@Service
+public class TopHitsIndex implements HitListener {
+
+    private static final int REBUILD_CHUNK_SIZE = 100_000;
+
+    private final HitStore hitStore;
+    private final TransactionTemplate transactionTemplate;
+    @Getter
+    private final boolean enabled;
+    @Getter
+    private final int capacity;
+    private final long retentionHours;
+    private final NavigableMap<Instant, SpaceSaving> buckets = new ConcurrentSkipListMap<>();
+
+    public TopHitsIndex(
+            HitStore hitStore,
+            TransactionTemplate transactionTemplate,
+            @Value("${stats.top.enabled:false}") boolean enabled,
+            @Value("${stats.top.capacity:1000}") int capacity,
+            @Value("${stats.top.retention-hours:720}") long retentionHours
+    ) {
+        this.hitStore = hitStore;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.retentionHours = retentionHours;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status ->
+                hitStore.scan(retentionStart(), REBUILD_CHUNK_SIZE, this::onHits));
+        log.info("Top hits sketches are built for {} hours", buckets.size());
+    }
+
+    @Override
+    public void onHits(List<EndpointHit> hits) {
+        if (!enabled) {
+            return;
+        }
+        Instant oldest = retentionStart();
+        for (EndpointHit hit : hits) {
+            if (hit.getTimestamp().isBefore(oldest)) {
+                continue;
+            }
+            SpaceSaving sketch = buckets.computeIfAbsent(hit.getTimestamp().truncatedTo(ChronoUnit.HOURS),
+                    bucket -> new SpaceSaving(capacity));
+            synchronized (sketch) {
+                sketch.offer(key(hit.getAppId(), hit.getUriId()), 1);
+            }
+        }
+    }
+
+    @Scheduled(cron = "0 0 * * * *")
+    public void evict() {
+        buckets.headMap(retentionStart()).clear();
+    }
+
+    // Окно [start, end] включительно; счетчики оценочные и могут быть завышены для редких uri.
+    // Окно, начинающееся раньше срока хранения скетчей, отклоняется: точный подсчет старой части - полная агрегация
+    public List<HitCount> top(Instant start, Instant end, int k) {
+        Instant oldest = retentionStart();
+        if (start.isBefore(oldest)) {
+            String errorMessage = String.format("Top hits are kept for %d hours, start should not be before %s, " +
+                    "start=%s", retentionHours, oldest, start);
+            log.error(errorMessage);
+            throw new ValidationException(errorMessage);
+        }
+        Instant to = end.plusSeconds(1);
+        SpaceSaving merged = new SpaceSaving(capacity);
+        Instant alignedFrom = ceil(start);
+        Instant alignedTo = to.truncatedTo(ChronoUnit.HOURS);
+        if (alignedFrom.isBefore(alignedTo)) {
+            for (SpaceSaving sketch : buckets.subMap(alignedFrom, alignedTo).values()) {
+                synchronized (sketch) {
+                    merged.merge(sketch);
+                }
+            }
+            offerExact(start, alignedFrom, merged);
+            offerExact(alignedTo, to, merged);
+        } else {
+            offerExact(start, to, merged);
+        }
+        return merged.top(k).stream()
+                .map(counter -> new HitCount((int) (counter.getKey() >>> 32), (int) counter.getKey(),
+                        counter.getCount()))
+                .toList();
+    }
+
+    private void offerExact(Instant from, Instant to, SpaceSaving merged) {
+        if (!from.isBefore(to)) {
+            return;
+        }
+        for (HitCount hitCount : hitStore.aggregate(from, to, Set.of(), false)) {
+            merged.offer(key(hitCount.getAppId(), hitCount.getUriId()), hitCount.getHits());
+        }
+    }
+
+    private Instant retentionStart() {
+        return Instant.now().truncatedTo(ChronoUnit.HOURS).minus(retentionHours, ChronoUnit.HOURS);
+    }
+
+    private static Instant ceil(Instant instant) {
+        Instant floor = instant.truncatedTo(ChronoUnit.HOURS);
+        return floor.equals(instant) ? floor : floor.plus(1, ChronoUnit.HOURS);
+    }
+
+    private static long key(int appId, int uriId) {
+        return ((long) appId << 32) | (uriId & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,137 @@
+package ru.practicum.stats.unique;
+
+import java.util.Arrays;
+
+// HyperLogLog с разреженным представлением для малых множеств.
+// Стандартная ошибка оценки 1.04 / sqrt(2^precision): для precision=14 около 0.8%.
+public class HyperLogLog implements UniqueIpSketch {
+
+    private static final int RHO_BITS = 6;
+    private static final int RHO_MASK = (1 << RHO_BITS) - 1;
+
+    private final int precision;
+    private final int registerCount;
+    private final int sparseLimit;
+    private int[] sparse = new int[4];
+    private int sparseSize;
+    private byte[] registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18) {
+            throw new IllegalArgumentException("Precision should be between 4 and 18, precision=" + precision);
+        }
+        this.precision = precision;
+        this.registerCount = 1 << precision;
+        this.sparseLimit = registerCount / 8;
+    }
+
+    @Override
+    public void offer(String value) {
+        long hash = hash(value);
+        int index = (int) (hash >>> (Long.SIZE - precision));
+        long rest = (hash << precision) | (1L << (precision - 1));
+        set(index, (byte) (Long.numberOfLeadingZeros(rest) + 1));
+    }
+
+    @Override
+    public void merge(UniqueIpSketch sketch) {
+        HyperLogLog other = (HyperLogLog) sketch;
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Could not merge sketches with different precision");
+        }
+        if (other.registers != null) {
+            for (int i = 0; i < registerCount; i++) {
+                set(i, other.registers[i]);
+            }
+        } else {
+            for (int i = 0; i < other.sparseSize; i++) {
+                set(other.sparse[i] >>> RHO_BITS, (byte) (other.sparse[i] & RHO_MASK));
+            }
+        }
+    }
+
+    @Override
+    public long cardinality() {
+        int zeros = 0;
+        double sum = 0;
+        if (registers == null) {
+            zeros = registerCount - sparseSize;
+            sum = zeros;
+            for (int i = 0; i < sparseSize; i++) {
+                sum += Math.scalb(1.0, -(sparse[i] & RHO_MASK));
+            }
+        } else {
+            for (byte register : registers) {
+                if (register == 0) {
+                    zeros++;
+                }
+                sum += Math.scalb(1.0, -register);
+            }
+        }
+        double alpha = 0.7213 / (1 + 1.079 / registerCount);
+        double estimate = alpha * registerCount * registerCount / sum;
+        if (estimate <= 2.5 * registerCount && zeros > 0) {
+            estimate = registerCount * Math.log((double) registerCount / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    @Override
+    public long sizeInBytes() {
+        return registers != null ? registerCount : (long) sparse.length * Integer.BYTES;
+    }
+
+    private void set(int index, byte rho) {
+        if (rho == 0) {
+            return;
+        }
+        if (registers != null) {
+            if (registers[index] < rho) {
+                registers[index] = rho;
+            }
+            return;
+        }
+        int position = Arrays.binarySearch(sparse, 0, sparseSize, index << RHO_BITS);
+        int found = position >= 0 ? position : -position - 1;
+        if (found < sparseSize && sparse[found] >>> RHO_BITS == index) {
+            if ((sparse[found] & RHO_MASK) < rho) {
+                sparse[found] = index << RHO_BITS | rho;
+            }
+            return;
+        }
+        if (sparseSize == sparseLimit) {
+            toDense();
+            set(index, rho);
+            return;
+        }
+        if (sparseSize == sparse.length) {
+            sparse = Arrays.copyOf(sparse, Math.min(sparse.length * 2, sparseLimit));
+        }
+        System.arraycopy(sparse, found, sparse, found + 1, sparseSize - found);
+        sparse[found] = index << RHO_BITS | rho;
+        sparseSize++;
+    }
+
+    private void toDense() {
+        registers = new byte[registerCount];
+        for (int i = 0; i < sparseSize; i++) {
+            registers[sparse[i] >>> RHO_BITS] = (byte) (sparse[i] & RHO_MASK);
+        }
+        sparse = null;
+        sparseSize = 0;
+    }
+
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,33 @@
+package ru.practicum.stats.unique;
+
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+
+public class IpBitmap implements UniqueIpSketch {
+
+    private final IpDictionary dictionary;
+    private final Roaring64Bitmap bitmap = new Roaring64Bitmap();
+
+    public IpBitmap(IpDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public void offer(String ip) {
+        bitmap.addLong(dictionary.toId(ip));
+    }
+
+    @Override
+    public void merge(UniqueIpSketch other) {
+        bitmap.or(((IpBitmap) other).bitmap);
+    }
+
+    @Override
+    public long cardinality() {
+        return bitmap.getLongCardinality();
+    }
+
+    @Override
+    public long sizeInBytes() {
+        return bitmap.getLongSizeInBytes();
+    }
+}
@@ -0,0 +1,54 @@
+package ru.practicum.stats.unique;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// IPv4 кодируется своим 32-битным значением, остальные строки получают номера выше 2^32
+public class IpDictionary {
+
+    private static final long FIRST_DICTIONARY_ID = 1L << 32;
+
+    private final Map<String, Long> ids = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(FIRST_DICTIONARY_ID);
+
+    public long toId(String ip) {
+        long ipv4 = parseIpv4(ip);
+        if (ipv4 >= 0) {
+            return ipv4;
+        }
+        return ids.computeIfAbsent(ip, key -> nextId.getAndIncrement());
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+    private static long parseIpv4(String ip) {
+        long result = 0;
+        int octet = -1;
+        int dots = 0;
+        for (int i = 0; i < ip.length(); i++) {
+            char c = ip.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (octet == 0) {
+                    return -1;
+                }
+                octet = octet < 0 ? c - '0' : octet * 10 + (c - '0');
+                if (octet > 255) {
+                    return -1;
+                }
+            } else if (c == '.' && octet >= 0 && dots < 3) {
+                result = result << 8 | octet;
+                octet = -1;
+                dots++;
+            } else {
+                return -1;
+            }
+        }
+        if (dots != 3 || octet < 0) {
+            return -1;
+        }
+        return result << 8 | octet;
+    }
+}
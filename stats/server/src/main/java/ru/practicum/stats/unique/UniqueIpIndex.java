@@ -0,0 +1,377 @@
+package ru.practicum.stats.unique;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats.dictionary.HitDictionary;
+import ru.practicum.stats.ingest.HitListener;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.model.ViewStats;
+import ru.practicum.stats.store.HitStore;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Скетчи уникальных ip по uri и интервалам. Память ограничена max-bytes: при превышении записи uri вытесняются,
+// и uri, скетчи которого были вытеснены, считается точным запросом к hits
+@Slf4j
+@Service
+public class UniqueIpIndex implements HitListener {
+
+    private static final String MODE_HLL = "hll";
+    private static final String MODE_BITMAP = "bitmap";
+    private static final int REBUILD_CHUNK_SIZE = 100_000;
+    private static final int RAW_CHUNK_SIZE = 10_000;
+
+    private final HitStore hitStore;
+    private final HitDictionary hitDictionary;
+    private final TransactionTemplate transactionTemplate;
+    private final String mode;
+    private final int precision;
+    private final ChronoUnit bucketUnit;
+    private final int retentionDays;
+    private final int hourlyDays;
+    private final IpDictionary ipDictionary = new IpDictionary();
+    private final Cache<String, UriSketches> sketches;
+    // число вытесненных uri; пока оно 0, отсутствие uri означает, что хитов по нему в скетчах нет
+    private final AtomicLong evictions = new AtomicLong();
+    // интервалы раньше границы дневные, позже - часовые; граница сдвигается под блокировкой записи,
+    // запись хитов и чтение интервалов идут под блокировкой чтения
+    private final ReentrantReadWriteLock compactLock = new ReentrantReadWriteLock();
+    private volatile Instant compactedBefore;
+
+    public UniqueIpIndex(
+            HitStore hitStore,
+            HitDictionary hitDictionary,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${stats.unique.mode:exact}") String mode,
+            @Value("${stats.unique.hll.precision:14}") int precision,
+            @Value("${stats.unique.retention-days:30}") int retentionDays,
+            @Value("${stats.unique.bitmap.hourly-days:2}") int hourlyDays,
+            @Value("${stats.unique.max-bytes:268435456}") long maxBytes
+    ) {
+        this.hitStore = hitStore;
+        this.hitDictionary = hitDictionary;
+        this.transactionTemplate = transactionTemplate;
+        this.mode = mode.toLowerCase(Locale.ROOT);
+        this.precision = precision;
+        this.retentionDays = retentionDays;
+        this.hourlyDays = hourlyDays;
+        // скетчи хранятся по часам; битовые карты точны при слиянии, поэтому старше hourly-days дней
+        // сливаются в дневные, а края окна за последние дни остаются не длиннее часа
+        this.bucketUnit = MODE_BITMAP.equals(this.mode) ? ChronoUnit.DAYS : ChronoUnit.HOURS;
+        this.compactedBefore = compactionBoundary();
+        this.sketches = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                // вытеснение в потоке записи: память не превышает предел, пока фоновая задача ждет очереди
+                .executor(Runnable::run)
+                .weigher((String uri, UriSketches entry) -> entry.weight)
+                .evictionListener((String uri, UriSketches entry, RemovalCause cause) ->
+                        evictions.incrementAndGet())
+                .build();
+        Gauge.builder("stats.unique.uris", sketches, Cache::estimatedSize).register(meterRegistry);
+        Gauge.builder("stats.unique.memory", sketches,
+                        cache -> cache.policy().eviction().orElseThrow().weightedSize().orElse(0))
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        FunctionCounter.builder("stats.unique.evictions", evictions, AtomicLong::get).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        if (!isEnabled()) {
+            return;
+        }
+        Instant horizon = horizon();
+        log.info("Building unique ip sketches from hits since {}, mode={}", horizon, mode);
+        transactionTemplate.executeWithoutResult(status -> hitStore.scan(horizon, REBUILD_CHUNK_SIZE, this::onHits));
+        log.info("Unique ip sketches are built for {} uris", sketches.estimatedSize());
+    }
+
+    public boolean isEnabled() {
+        return MODE_HLL.equals(mode) || MODE_BITMAP.equals(mode);
+    }
+
+    // Скетчи хранятся retention-days; окна, начинающиеся раньше, считаются точным запросом к hits
+    public boolean covers(Instant start) {
+        return isEnabled() && !start.isBefore(horizon());
+    }
+
+    // Записи uri без интервалов остаются и вытесняются по размеру вместе с остальными
+    @Scheduled(cron = "0 0 * * * *")
+    public void evict() {
+        if (!isEnabled()) {
+            return;
+        }
+        compact();
+        Instant horizon = horizon();
+        sketches.asMap().forEach((uri, entry) -> {
+            entry.apps.values().forEach(buckets -> buckets.headMap(horizon).clear());
+            reweigh(uri, entry);
+        });
+    }
+
+    @Override
+    public void onHits(List<EndpointHit> hits) {
+        if (!isEnabled()) {
+            return;
+        }
+        Instant horizon = horizon();
+        Map<String, UriSketches> touched = new HashMap<>();
+        compactLock.readLock().lock();
+        try {
+            Instant boundary = compactedBefore;
+            for (EndpointHit hit : hits) {
+                if (hit.getTimestamp().isBefore(horizon)) {
+                    continue;
+                }
+                UriSketches entry = touched.computeIfAbsent(hit.getUri(), uri -> sketches.get(uri, this::newEntry));
+                UniqueIpSketch sketch = entry.apps.computeIfAbsent(hit.getApp(), app -> new ConcurrentSkipListMap<>())
+                        .computeIfAbsent(floor(hit.getTimestamp(), boundary), bucket -> newSketch());
+                synchronized (sketch) {
+                    sketch.offer(hit.getIp());
+                }
+            }
+        } finally {
+            compactLock.readLock().unlock();
+        }
+        touched.forEach(this::reweigh);
+    }
+
+    // Окно [start, end] включительно: целые интервалы берутся из скетчей, края окна - из hits.
+    // uri, скетчи которых неполны для окна, считаются точным запросом к hits
+    public List<ViewStats> countUniqueHits(Instant start, Instant end, Set<String> uris) {
+        Set<Integer> uriIds = hitDictionary.findUriIds(uris);
+        if (!uris.isEmpty() && uriIds.isEmpty()) {
+            return List.of();
+        }
+        Instant to = end.plusSeconds(1);
+        Instant boundary = compactedBefore;
+        Instant alignedFrom = ceil(start, boundary);
+        Instant alignedTo = floor(to, boundary);
+        if (!alignedFrom.isBefore(alignedTo)) {
+            Map<UriKey, UniqueIpSketch> merged = new HashMap<>();
+            offerRaw(start, to, uriIds, merged);
+            return toViewStats(merged, List.of());
+        }
+
+        long evictedBefore = evictions.get();
+        if (uris.isEmpty()) {
+            // вытесненный uri нельзя найти среди оставшихся, поэтому после вытеснений окно считается точно
+            if (evictedBefore > 0) {
+                return exact(start, to, uriIds);
+            }
+            List<ViewStats> result = sketched(sketches.asMap(), start, to, uriIds, List.of());
+            return evictions.get() == evictedBefore ? result : exact(start, to, uriIds);
+        }
+
+        Map<String, UriSketches> entries = new HashMap<>();
+        Set<String> incomplete = new HashSet<>();
+        for (String uri : uris) {
+            UriSketches entry = sketches.getIfPresent(uri);
+            if (entry == null ? evictedBefore > 0 : entry.coveredFrom.isAfter(alignedFrom)) {
+                incomplete.add(uri);
+            } else if (entry != null) {
+                entries.put(uri, entry);
+            }
+        }
+        if (incomplete.isEmpty()) {
+            return sketched(entries, start, to, uriIds, List.of());
+        }
+        // пустой набор id в запросах к hits означает все uri, поэтому неизвестные uri пропускаются
+        Set<Integer> incompleteIds = hitDictionary.findUriIds(incomplete);
+        List<ViewStats> exact = incompleteIds.isEmpty() ? List.of() : exact(start, to, incompleteIds);
+        Set<Integer> completeIds = hitDictionary.findUriIds(uris.stream()
+                .filter(uri -> !incomplete.contains(uri))
+                .toList());
+        if (completeIds.isEmpty()) {
+            return toViewStats(Map.of(), exact);
+        }
+        return sketched(entries, start, to, completeIds, exact);
+    }
+
+    // Целые интервалы окна [from, to) из скетчей записей, края - из hits
+    private List<ViewStats> sketched(Map<String, UriSketches> entries, Instant from, Instant to, Set<Integer> uriIds,
+                                     List<ViewStats> exact) {
+        Map<UriKey, UniqueIpSketch> merged = new HashMap<>();
+        Instant alignedFrom;
+        Instant alignedTo;
+        compactLock.readLock().lock();
+        try {
+            Instant boundary = compactedBefore;
+            alignedFrom = ceil(from, boundary);
+            alignedTo = floor(to, boundary);
+            if (alignedFrom.isBefore(alignedTo)) {
+                mergeSketches(entries, alignedFrom, alignedTo, merged);
+            } else {
+                alignedFrom = to;
+                alignedTo = to;
+            }
+        } finally {
+            compactLock.readLock().unlock();
+        }
+        offerRaw(from, alignedFrom, uriIds, merged);
+        offerRaw(alignedTo, to, uriIds, merged);
+        return toViewStats(merged, exact);
+    }
+
+    private void mergeSketches(Map<String, UriSketches> entries, Instant from, Instant to,
+                               Map<UriKey, UniqueIpSketch> merged) {
+        entries.forEach((uri, entry) -> entry.apps.forEach((app, buckets) -> {
+            for (UniqueIpSketch sketch : buckets.subMap(from, to).values()) {
+                synchronized (sketch) {
+                    merged.computeIfAbsent(new UriKey(app, uri), k -> newSketch()).merge(sketch);
+                }
+            }
+        }));
+    }
+
+    private void offerRaw(Instant from, Instant to, Set<Integer> uriIds, Map<UriKey, UniqueIpSketch> merged) {
+        if (!from.isBefore(to)) {
+            return;
+        }
+        // ip краев окна идут в скетчи пачками, не накапливаясь в памяти; курсору PostgreSQL нужна транзакция
+        transactionTemplate.executeWithoutResult(status -> hitStore.scanDistinctIps(from, to, uriIds, RAW_CHUNK_SIZE,
+                chunk -> chunk.forEach(hit -> merged.computeIfAbsent(new UriKey(hit.getApp(), hit.getUri()),
+                        k -> newSketch()).offer(hit.getIp()))));
+    }
+
+    // Часовые интервалы старше hourly-days дней сливаются в дневные; граница сдвигается раз в сутки
+    private void compact() {
+        Instant boundary = compactionBoundary();
+        Instant from = compactedBefore;
+        if (!boundary.isAfter(from)) {
+            return;
+        }
+        compactLock.writeLock().lock();
+        try {
+            compactedBefore = boundary;
+            sketches.asMap().values().forEach(entry -> entry.apps.values().forEach(buckets -> {
+                Iterator<Map.Entry<Instant, UniqueIpSketch>> iterator =
+                        buckets.subMap(from, boundary).entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<Instant, UniqueIpSketch> bucket = iterator.next();
+                    Instant day = bucket.getKey().truncatedTo(ChronoUnit.DAYS);
+                    if (!day.equals(bucket.getKey())) {
+                        buckets.computeIfAbsent(day, d -> newSketch()).merge(bucket.getValue());
+                        iterator.remove();
+                    }
+                }
+            }));
+        } finally {
+            compactLock.writeLock().unlock();
+        }
+    }
+
+    private List<ViewStats> exact(Instant from, Instant to, Set<Integer> uriIds) {
+        return hitDictionary.toViewStats(hitStore.aggregate(from, to, uriIds, true));
+    }
+
+    private List<ViewStats> toViewStats(Map<UriKey, UniqueIpSketch> merged, List<ViewStats> exact) {
+        List<ViewStats> result = new ArrayList<>(exact);
+        merged.forEach((key, sketch) -> result.add(new ViewStats(key.app(), key.uri(), sketch.cardinality())));
+        return result.stream()
+                .filter(viewStats -> viewStats.getHits() > 0)
+                .sorted(Comparator.comparing(ViewStats::getHits).reversed())
+                .toList();
+    }
+
+    // Новый uri после вытеснений мог быть вытеснен раньше: его скетчи полны только со следующего интервала
+    private UriSketches newEntry(String uri) {
+        Instant coveredFrom = evictions.get() == 0
+                ? Instant.MIN
+                : Instant.now().truncatedTo(ChronoUnit.HOURS).plus(1, ChronoUnit.HOURS);
+        return new UriSketches(uri, coveredFrom);
+    }
+
+    // вес записи пересчитывается заменой значения в кеше
+    private void reweigh(String uri, UriSketches entry) {
+        entry.measure();
+        sketches.asMap().replace(uri, entry, entry);
+    }
+
+    private UniqueIpSketch newSketch() {
+        return MODE_BITMAP.equals(mode) ? new IpBitmap(ipDictionary) : new HyperLogLog(precision);
+    }
+
+    private Instant horizon() {
+        return Instant.now().minus(retentionDays, ChronoUnit.DAYS).truncatedTo(bucketUnit);
+    }
+
+    // В режиме hll граница слияния Instant.MIN: все интервалы часовые
+    private Instant compactionBoundary() {
+        return MODE_BITMAP.equals(mode)
+                ? Instant.now().truncatedTo(ChronoUnit.DAYS).minus(hourlyDays, ChronoUnit.DAYS)
+                : Instant.MIN;
+    }
+
+    private Instant floor(Instant instant, Instant boundary) {
+        return instant.truncatedTo(unit(instant, boundary));
+    }
+
+    private Instant ceil(Instant instant, Instant boundary) {
+        Instant floor = floor(instant, boundary);
+        return floor.equals(instant) ? floor : floor.plus(1, unit(instant, boundary));
+    }
+
+    private static ChronoUnit unit(Instant instant, Instant boundary) {
+        return instant.isBefore(boundary) ? ChronoUnit.DAYS : ChronoUnit.HOURS;
+    }
+
+    private record UriKey(String app, String uri) {
+    }
+
+    private static class UriSketches {
+        // оценка накладных расходов записи uri и одного интервала
+        private static final int ENTRY_BYTES = 256;
+        private static final int BUCKET_BYTES = 96;
+
+        private final String uri;
+        // интервалы раньше coveredFrom могут быть неполными
+        private final Instant coveredFrom;
+        private final Map<String, NavigableMap<Instant, UniqueIpSketch>> apps = new ConcurrentHashMap<>();
+        private volatile int weight;
+
+        UriSketches(String uri, Instant coveredFrom) {
+            this.uri = uri;
+            this.coveredFrom = coveredFrom;
+            this.weight = ENTRY_BYTES + uri.length() * 2;
+        }
+
+        void measure() {
+            long bytes = ENTRY_BYTES + uri.length() * 2L;
+            for (NavigableMap<Instant, UniqueIpSketch> buckets : apps.values()) {
+                for (UniqueIpSketch sketch : buckets.values()) {
+                    synchronized (sketch) {
+                        bytes += BUCKET_BYTES + sketch.sizeInBytes();
+                    }
+                }
+            }
+            weight = (int) Math.min(bytes, Integer.MAX_VALUE);
+        }
+    }
+}
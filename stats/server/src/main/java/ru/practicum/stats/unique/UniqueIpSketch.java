@@ -0,0 +1,12 @@
+package ru.practicum.stats.unique;
+
+public interface UniqueIpSketch {
+    void offer(String ip);
+
+    void merge(UniqueIpSketch other);
+
+    long cardinality();
+
+    // Оценка занимаемой памяти
+    long sizeInBytes();
+}
@@ -0,0 +1,46 @@
+CREATE TABLE hit_apps (
+  id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY NOT NULL,
+  name VARCHAR NOT NULL UNIQUE
+);
+
+CREATE TABLE hit_uris (
+  id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY NOT NULL,
+  name VARCHAR NOT NULL UNIQUE
+);
+
+CREATE TABLE hit_ips (
+  id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY NOT NULL,
+  name VARCHAR NOT NULL UNIQUE
+);
+
+CREATE TABLE hits_minute (
+  app_id INT NOT NULL,
+  uri_id INT NOT NULL,
+  bucket TIMESTAMP NOT NULL,
+  hits BIGINT NOT NULL,
+  PRIMARY KEY (app_id, uri_id, bucket)
+);
+
+CREATE TABLE hits_hour (
+  app_id INT NOT NULL,
+  uri_id INT NOT NULL,
+  bucket TIMESTAMP NOT NULL,
+  hits BIGINT NOT NULL,
+  PRIMARY KEY (app_id, uri_id, bucket)
+);
+
+CREATE TABLE hits_day (
+  app_id INT NOT NULL,
+  uri_id INT NOT NULL,
+  bucket TIMESTAMP NOT NULL,
+  hits BIGINT NOT NULL,
+  PRIMARY KEY (app_id, uri_id, bucket)
+);
+
+CREATE TABLE hits (
+  id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY NOT NULL,
+  app_id INT NOT NULL,
+  uri_id INT NOT NULL,
+  ip_id INT NOT NULL,
+  timestamp TIMESTAMP NOT NULL
+);
@@ -0,0 +1,4 @@
+-- окно по времени без фильтра uri и сканирование краев окна
+CREATE INDEX hits_timestamp_uri_id_idx ON hits (timestamp, uri_id);
+-- запросы просмотров конкретных событий: uri_id in (...) и диапазон времени
+CREATE INDEX hits_uri_id_timestamp_idx ON hits (uri_id, timestamp);
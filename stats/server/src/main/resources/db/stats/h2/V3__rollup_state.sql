@@ -0,0 +1,7 @@
+-- Граница хитов, учтенных в агрегатах (одна строка): live - агрегаты ведутся при записи хитов,
+-- иначе хиты с id больше last_hit_id записаны с выключенными агрегатами и в них не попали
+CREATE TABLE rollup_state (
+  id INT PRIMARY KEY NOT NULL,
+  live BOOLEAN NOT NULL,
+  last_hit_id BIGINT NOT NULL
+);
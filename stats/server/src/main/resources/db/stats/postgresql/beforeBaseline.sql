@@ -0,0 +1,81 @@
+-- Выполняется, только когда Flyway принимает за версию 1 базу, созданную до миграций через schema.sql.
+-- В такой базе hits хранит app, uri и ip строками: таблицы приводятся к схеме V1 (повторяет V1__init.sql),
+-- словари заполняются различными значениями, хиты переносятся с сохранением id.
+DO $$
+BEGIN
+  IF NOT EXISTS (
+    SELECT 1 FROM information_schema.columns
+    WHERE table_schema = current_schema() AND table_name = 'hits' AND column_name = 'app'
+  ) THEN
+    RETURN;
+  END IF;
+
+  ALTER TABLE hits RENAME TO hits_legacy;
+
+  CREATE TABLE hit_apps (
+    id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY NOT NULL,
+    name VARCHAR NOT NULL UNIQUE
+  );
+
+  CREATE TABLE hit_uris (
+    id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY NOT NULL,
+    name VARCHAR NOT NULL UNIQUE
+  );
+
+  CREATE TABLE hit_ips (
+    id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY NOT NULL,
+    name VARCHAR NOT NULL UNIQUE
+  );
+
+  CREATE TABLE hits_minute (
+    app_id INT NOT NULL,
+    uri_id INT NOT NULL,
+    bucket TIMESTAMP NOT NULL,
+    hits BIGINT NOT NULL,
+    PRIMARY KEY (app_id, uri_id, bucket)
+  );
+
+  CREATE TABLE hits_hour (
+    app_id INT NOT NULL,
+    uri_id INT NOT NULL,
+    bucket TIMESTAMP NOT NULL,
+    hits BIGINT NOT NULL,
+    PRIMARY KEY (app_id, uri_id, bucket)
+  );
+
+  CREATE TABLE hits_day (
+    app_id INT NOT NULL,
+    uri_id INT NOT NULL,
+    bucket TIMESTAMP NOT NULL,
+    hits BIGINT NOT NULL,
+    PRIMARY KEY (app_id, uri_id, bucket)
+  );
+
+  CREATE TABLE hits (
+    id BIGINT GENERATED ALWAYS AS IDENTITY NOT NULL,
+    app_id INT NOT NULL,
+    uri_id INT NOT NULL,
+    ip_id INT NOT NULL,
+    timestamp TIMESTAMP NOT NULL,
+    PRIMARY KEY (id, timestamp)
+  ) PARTITION BY RANGE (timestamp);
+
+  CREATE TABLE hits_default PARTITION OF hits DEFAULT;
+
+  INSERT INTO hit_apps (name) SELECT DISTINCT app FROM hits_legacy ORDER BY app;
+  INSERT INTO hit_uris (name) SELECT DISTINCT uri FROM hits_legacy ORDER BY uri;
+  INSERT INTO hit_ips (name) SELECT DISTINCT ip FROM hits_legacy ORDER BY ip;
+
+  INSERT INTO hits (id, app_id, uri_id, ip_id, timestamp) OVERRIDING SYSTEM VALUE
+  SELECT h.id, a.id, u.id, i.id, h.timestamp
+  FROM hits_legacy h
+  JOIN hit_apps a ON a.name = h.app
+  JOIN hit_uris u ON u.name = h.uri
+  JOIN hit_ips i ON i.name = h.ip;
+
+  -- новые хиты получают id после перенесенных
+  PERFORM setval(pg_get_serial_sequence('hits', 'id'), coalesce(max(id), 0) + 1, false) FROM hits;
+
+  DROP TABLE hits_legacy;
+END
+$$;
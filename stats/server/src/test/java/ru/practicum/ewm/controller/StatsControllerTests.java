@@ -1,5 +0,0 @@
-package ru.practicum.ewm.controller;
-
-public class StatsControllerTests {
-
-}
\ No newline at end of file
@@ -0,0 +1,89 @@
+package ru.practicum.stats.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.practicum.ewm.dto.GetStatsRequest;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.model.ViewStats;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StatsResultCacheTests {
+
+    private final StatsResultCache cache = new StatsResultCache(new SimpleMeterRegistry(), true, 60, 100, 300);
+
+    @Test
+    void closedWindowKeyMatchesRequestEnd() {
+        Instant start = Instant.now().truncatedTo(ChronoUnit.HOURS).minus(2, ChronoUnit.HOURS);
+        Instant end = start.plusSeconds(10);
+        List<Instant[]> windows = new ArrayList<>();
+        BiFunction<Instant, Instant, List<ViewStats>> count = (from, to) -> {
+            windows.add(new Instant[]{from, to});
+            return List.of(new ViewStats("app", "/events/1", 1L));
+        };
+
+        cache.get(request(start, end, false), count);
+        cache.onHits(List.of(hit(end.plusSeconds(1))));
+        List<ViewStats> stats = cache.get(request(start, end, false), count);
+
+        assertThat(windows).hasSize(1);
+        assertThat(windows.get(0)).containsExactly(start, end);
+        assertThat(stats.get(0).getHits()).isEqualTo(1L);
+    }
+
+    @Test
+    void openWindowIsQuantisedAndPatched() {
+        Instant start = Instant.now().minus(1, ChronoUnit.HOURS);
+        Instant end = Instant.now().plusSeconds(1).truncatedTo(ChronoUnit.SECONDS);
+        AtomicInteger loads = new AtomicInteger();
+        BiFunction<Instant, Instant, List<ViewStats>> count = (from, to) -> {
+            loads.incrementAndGet();
+            assertThat(to).isAfterOrEqualTo(end);
+            return List.of(new ViewStats("app", "/events/1", 1L));
+        };
+
+        cache.get(request(start, end, false), count);
+        cache.onHits(List.of(hit(Instant.now().truncatedTo(ChronoUnit.SECONDS))));
+        List<ViewStats> stats = cache.get(request(start, end, false), count);
+
+        assertThat(loads).hasValue(1);
+        assertThat(stats.get(0).getHits()).isEqualTo(2L);
+    }
+
+    @Test
+    void uniqueEntryIsReloadedAfterHitInWindow() {
+        Instant start = Instant.now().truncatedTo(ChronoUnit.HOURS).minus(2, ChronoUnit.HOURS);
+        Instant end = start.plusSeconds(600);
+        AtomicInteger loads = new AtomicInteger();
+        BiFunction<Instant, Instant, List<ViewStats>> count = (from, to) ->
+                List.of(new ViewStats("app", "/events/1", (long) loads.incrementAndGet()));
+
+        cache.get(request(start, end, true), count);
+        cache.onHits(List.of(hit(start.plusSeconds(5))));
+        List<ViewStats> stats = cache.get(request(start, end, true), count);
+
+        assertThat(loads).hasValue(2);
+        assertThat(stats.get(0).getHits()).isEqualTo(2L);
+    }
+
+    private static GetStatsRequest request(Instant start, Instant end, boolean unique) {
+        return new GetStatsRequest(start, end, Set.of("/events/1"), unique);
+    }
+
+    private static EndpointHit hit(Instant timestamp) {
+        EndpointHit hit = new EndpointHit();
+        hit.setApp("app");
+        hit.setUri("/events/1");
+        hit.setIpId(1);
+        hit.setTimestamp(timestamp);
+        return hit;
+    }
+}
@@ -0,0 +1,139 @@
+package ru.practicum.stats.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import ru.practicum.ewm.dto.EndpointHitDto;
+import ru.practicum.ewm.dto.NewEndpointHitRequestDto;
+import ru.practicum.ewm.dto.ViewStatsDto;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+// Профиль reactive: WebFlux на Netty, хиты принимаются в буфер
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.main.web-application-type=reactive")
+@ActiveProfiles({"test", "reactive"})
+@AutoConfigureWebTestClient
+public class ReactiveStatsControllerTests {
+
+    private static final String START = "2000-01-01 00:00:00";
+    private static final String END = "2100-01-01 00:00:00";
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    void createAllReturnsHitsInRequestOrderAndCountsThem() {
+        List<NewEndpointHitRequestDto> request = IntStream.range(0, 3)
+                .mapToObj(i -> new NewEndpointHitRequestDto("reactive-app", "/reactive/" + i, "10.3.0." + i))
+                .toList();
+
+        List<EndpointHitDto> response = webTestClient.post().uri("/hits")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBodyList(EndpointHitDto.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(response).extracting(EndpointHitDto::getUri)
+                .containsExactly("/reactive/0", "/reactive/1", "/reactive/2");
+        // id назначается при записи из буфера, после ответа
+        assertThat(response).extracting(EndpointHitDto::getId).containsOnlyNulls();
+        // буфер сбрасывается в хранилище в фоне
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() ->
+                assertThat(getStats("/reactive/0,/reactive/1,/reactive/2", MediaType.APPLICATION_JSON))
+                        .extracting(ViewStatsDto::getHits)
+                        .containsExactly(1L, 1L, 1L));
+    }
+
+    @Test
+    void getStatsAnswersInCbor() {
+        postHit("/reactive/cbor");
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() ->
+                assertThat(getStats("/reactive/cbor", MediaType.APPLICATION_CBOR))
+                        .singleElement()
+                        .satisfies(viewStats -> assertThat(viewStats.getHits()).isEqualTo(1L)));
+    }
+
+    @Test
+    void streamStatsReturnsNdjson() {
+        postHit("/reactive/stream");
+        postHit("/reactive/stream");
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> {
+            List<ViewStatsDto> stats = webTestClient.get()
+                    .uri("/stats/stream?start={start}&end={end}&uris={uris}", START, END, "/reactive/stream")
+                    .accept(MediaType.APPLICATION_NDJSON)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                    .expectBodyList(ViewStatsDto.class)
+                    .returnResult()
+                    .getResponseBody();
+            assertThat(stats).singleElement()
+                    .satisfies(viewStats -> assertThat(viewStats.getHits()).isEqualTo(2L));
+        });
+    }
+
+    @Test
+    void createAllRejectsInvalidHit() {
+        List<Map<String, String>> request = List.of(
+                Map.of("app", "reactive-app", "uri", "/reactive/1", "ip", "10.3.1.1"),
+                Map.of("app", "reactive-app", "uri", "", "ip", "10.3.1.2")
+        );
+        webTestClient.post().uri("/hits")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void getStatsRejectsMissingEnd() {
+        webTestClient.get()
+                .uri("/stats?start={start}", START)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    private void postHit(String uri) {
+        webTestClient.post().uri("/hit")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new NewEndpointHitRequestDto("reactive-app", uri, "10.3.2.1"))
+                .exchange()
+                .expectStatus().isCreated();
+    }
+
+    private List<ViewStatsDto> getStats(String uris, MediaType mediaType) {
+        // у WebTestClient нет CBOR-декодера по умолчанию
+        return webTestClient.mutate()
+                .codecs(configurer -> configurer.customCodecs().register(new Jackson2CborDecoder()))
+                .build()
+                .get()
+                .uri("/stats?start={start}&end={end}&uris={uris}&exact=true", START, END, uris)
+                .accept(mediaType)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(mediaType)
+                // CBOR-декодер читает ответ только целиком, не потоком элементов
+                .expectBody(new ParameterizedTypeReference<List<ViewStatsDto>>() {
+                })
+                .returnResult()
+                .getResponseBody();
+    }
+}
@@ -0,0 +1,131 @@
+package ru.practicum.stats.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.practicum.ewm.dto.EndpointHitDto;
+import ru.practicum.ewm.dto.NewEndpointHitRequestDto;
+import ru.practicum.ewm.dto.ViewStatsDto;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class StatsControllerTests {
+
+    private static final String START = "2000-01-01 00:00:00";
+    private static final String END = "2100-01-01 00:00:00";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void createAllReturnsHitsInRequestOrder() throws Exception {
+        List<NewEndpointHitRequestDto> request = List.of(
+                new NewEndpointHitRequestDto("order-app", "/events/1", "10.0.0.1", "2024-01-01 10:00:00"),
+                new NewEndpointHitRequestDto("order-app", "/events/2", "10.0.0.2", "2024-01-01 10:00:01"),
+                new NewEndpointHitRequestDto("order-app", "/events/3", "10.0.0.3")
+        );
+
+        List<EndpointHitDto> response = postHits(request);
+
+        assertThat(response).hasSize(3);
+        assertThat(response).extracting(EndpointHitDto::getUri)
+                .containsExactly("/events/1", "/events/2", "/events/3");
+        assertThat(response).extracting(EndpointHitDto::getIp)
+                .containsExactly("10.0.0.1", "10.0.0.2", "10.0.0.3");
+        assertThat(response.get(0).getTimestamp()).isEqualTo("2024-01-01 10:00:00");
+        assertThat(response).allSatisfy(hit -> assertThat(hit.getId()).isNotNull());
+        assertThat(response.get(0).getId()).isLessThan(response.get(1).getId());
+        assertThat(response.get(1).getId()).isLessThan(response.get(2).getId());
+    }
+
+    @Test
+    void createAllSplitsLargeBatchIntoChunks() throws Exception {
+        int size = 2500;
+        List<NewEndpointHitRequestDto> request = IntStream.range(0, size)
+                .mapToObj(i -> new NewEndpointHitRequestDto("chunk-app", "/chunk", "10.1." + i / 256 + "." + i % 256))
+                .toList();
+
+        List<EndpointHitDto> response = postHits(request);
+
+        assertThat(response).hasSize(size);
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < size; i++) {
+            assertThat(response.get(i).getIp()).isEqualTo(request.get(i).getIp());
+            assertThat(ids.add(response.get(i).getId())).isTrue();
+        }
+        assertThat(ids).doesNotContainNull();
+
+        MvcResult result = mockMvc.perform(get("/stats")
+                        .param("start", START)
+                        .param("end", END)
+                        .param("uris", "/chunk")
+                        .param("exact", "true"))
+                .andExpect(status().isOk())
+                .andReturn();
+        List<ViewStatsDto> stats = objectMapper.readValue(result.getResponse().getContentAsString(),
+                new TypeReference<>() {
+                });
+        assertThat(stats).hasSize(1);
+        assertThat(stats.get(0).getHits()).isEqualTo(size);
+    }
+
+    @Test
+    void createAllRejectsEmptyBatch() throws Exception {
+        mockMvc.perform(post("/hits")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void createAllRejectsInvalidHit() throws Exception {
+        List<Map<String, String>> request = List.of(
+                Map.of("app", "invalid-app", "uri", "/events/1", "ip", "10.0.0.1"),
+                Map.of("app", "invalid-app", "uri", "", "ip", "10.0.0.2")
+        );
+        mockMvc.perform(post("/hits")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void createAllRejectsBatchOverMaxSize() throws Exception {
+        List<NewEndpointHitRequestDto> request = IntStream.range(0, 10_001)
+                .mapToObj(i -> new NewEndpointHitRequestDto("big-app", "/big", "10.2.0.1"))
+                .toList();
+        mockMvc.perform(post("/hits")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+    }
+
+    private List<EndpointHitDto> postHits(List<NewEndpointHitRequestDto> request) throws Exception {
+        MvcResult result = mockMvc.perform(post("/hits")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andReturn();
+        return objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+        });
+    }
+}
@@ -0,0 +1,86 @@
+package ru.practicum.stats.dictionary;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.stats.model.EndpointHit;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class HitDictionaryTests {
+
+    private final Map<Dimension, Map<String, Integer>> stored = new HashMap<>();
+    private final DictionaryRepository dictionaryRepository = mock(DictionaryRepository.class);
+    private final HitDictionary hitDictionary = new HitDictionary(dictionaryRepository, 2);
+
+    HitDictionaryTests() {
+        for (Dimension dimension : Dimension.values()) {
+            stored.put(dimension, new HashMap<>());
+        }
+        when(dictionaryRepository.findIds(any(), anyCollection())).thenAnswer(invocation -> {
+            Map<String, Integer> values = stored.get(invocation.<Dimension>getArgument(0));
+            Map<String, Integer> found = new HashMap<>();
+            invocation.<Collection<String>>getArgument(1).forEach(name -> {
+                if (values.containsKey(name)) {
+                    found.put(name, values.get(name));
+                }
+            });
+            return found;
+        });
+        doAnswer(invocation -> {
+            Map<String, Integer> values = stored.get(invocation.<Dimension>getArgument(0));
+            invocation.<Collection<String>>getArgument(1).forEach(name -> values.putIfAbsent(name, values.size() + 1));
+            return null;
+        }).when(dictionaryRepository).insertAll(any(), anyCollection());
+    }
+
+    @Test
+    void encodeResolvesBatchLargerThanIpCache() {
+        List<EndpointHit> hits = hits(10);
+
+        hitDictionary.encode(hits);
+
+        assertThat(hits).extracting(EndpointHit::getIpId).doesNotContainNull().doesNotHaveDuplicates();
+        assertThat(hits).extracting(EndpointHit::getIpId)
+                .containsExactlyElementsOf(hits.stream().map(hit -> stored.get(Dimension.IP).get(hit.getIp())).toList());
+    }
+
+    @Test
+    void encodeReadsKnownIpsWithoutInsert() {
+        stored.get(Dimension.IP).put("10.0.0.1", 7);
+        stored.get(Dimension.APP).put("app", 1);
+        stored.get(Dimension.URI).put("/events", 1);
+        List<EndpointHit> hits = hits(1);
+
+        hitDictionary.encode(hits);
+
+        assertThat(hits.get(0).getIpId()).isEqualTo(7);
+        verify(dictionaryRepository, never()).insertAll(eq(Dimension.IP), anyCollection());
+        verify(dictionaryRepository).findIds(Dimension.IP, Set.of("10.0.0.1"));
+    }
+
+    private List<EndpointHit> hits(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> {
+                    EndpointHit hit = new EndpointHit();
+                    hit.setApp("app");
+                    hit.setUri("/events");
+                    hit.setIp("10.0.0." + (i + 1));
+                    return hit;
+                })
+                .toList();
+    }
+}
@@ -0,0 +1,170 @@
+package ru.practicum.stats.ingest;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats.exception.ServiceUnavailableException;
+import ru.practicum.stats.exception.TooManyRequestsException;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.store.HitStore;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+public class BufferedHitWriterTests {
+
+    private final List<EndpointHit> stored = new ArrayList<>();
+    private final List<EndpointHit> notified = new ArrayList<>();
+    private static final int WRITERS = 4;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void writeAllRejectsWholeBatchWhenBufferIsFull() throws InterruptedException {
+        BufferedHitWriter writer = writer(3, "reject");
+        writer.writeAll(hits(2));
+
+        assertThatThrownBy(() -> writer.writeAll(hits(2))).isInstanceOf(TooManyRequestsException.class);
+
+        writer.start();
+        writer.stop();
+        assertThat(stored).hasSize(2);
+        assertThat(notified).hasSize(2);
+        assertThat(meterRegistry.counter("stats.ingest.buffer.rejected").count()).isEqualTo(1);
+    }
+
+    @Test
+    void writeAllDropsWholeBatchWhenBufferIsFull() throws InterruptedException {
+        BufferedHitWriter writer = writer(3, "drop");
+        writer.writeAll(hits(2));
+        writer.writeAll(hits(2));
+
+        writer.start();
+        writer.stop();
+        assertThat(stored).hasSize(2);
+        assertThat(meterRegistry.counter("stats.ingest.buffer.dropped").count()).isEqualTo(2);
+    }
+
+    @Test
+    void writeAllRejectsBatchLargerThanBuffer() {
+        BufferedHitWriter writer = writer(3, "block");
+
+        assertThatThrownBy(() -> writer.writeAll(hits(4))).isInstanceOf(TooManyRequestsException.class);
+    }
+
+    @Test
+    void stopFlushesBufferedHits() throws InterruptedException {
+        BufferedHitWriter writer = writer(100, "block");
+        writer.start();
+        for (int i = 0; i < 10; i++) {
+            writer.writeAll(hits(7));
+        }
+        writer.stop();
+
+        assertThat(stored).hasSize(70);
+        assertThat(notified).hasSize(70);
+    }
+
+    @Test
+    void writeReturnsHitWithoutId() throws InterruptedException {
+        BufferedHitWriter writer = writer(100, "block");
+
+        EndpointHit hit = writer.write(hits(1).get(0));
+
+        assertThat(hit.getId()).isNull();
+        writer.stop();
+    }
+
+    @Test
+    void writeAfterStopIsRejected() throws InterruptedException {
+        BufferedHitWriter writer = writer(100, "block");
+        writer.start();
+        writer.stop();
+
+        assertThatThrownBy(() -> writer.writeAll(hits(2))).isInstanceOf(ServiceUnavailableException.class);
+        assertThat(stored).isEmpty();
+    }
+
+    @Test
+    void hitsAcceptedWhileStoppingAreStored() throws Exception {
+        BufferedHitWriter writer = writer(100_000, "block");
+        writer.start();
+        AtomicInteger accepted = new AtomicInteger();
+        CountDownLatch writing = new CountDownLatch(WRITERS);
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS);
+        try {
+            List<Future<?>> writes = new ArrayList<>();
+            for (int i = 0; i < WRITERS; i++) {
+                writes.add(pool.submit(() -> {
+                    writing.countDown();
+                    while (true) {
+                        try {
+                            writer.writeAll(hits(3));
+                            accepted.addAndGet(3);
+                        } catch (TooManyRequestsException e) {
+                            Thread.onSpinWait();
+                        } catch (ServiceUnavailableException e) {
+                            return;
+                        }
+                    }
+                }));
+            }
+            writing.await();
+            TimeUnit.MILLISECONDS.sleep(50);
+            writer.stop();
+            for (Future<?> write : writes) {
+                write.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(accepted.get()).isPositive();
+        assertThat(stored).hasSize(accepted.get());
+    }
+
+    private BufferedHitWriter writer(int capacity, String backpressure) {
+        HitStore hitStore = mock(HitStore.class, invocation -> {
+            if (invocation.getMethod().getName().equals("append")) {
+                List<EndpointHit> hits = invocation.getArgument(0);
+                synchronized (stored) {
+                    stored.addAll(hits);
+                }
+                return hits;
+            }
+            return null;
+        });
+        HitListener listener = hits -> {
+            synchronized (notified) {
+                notified.addAll(hits);
+            }
+        };
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        return new BufferedHitWriter(hitStore, new HitNotifier(List.of(listener)), transactionTemplate, meterRegistry,
+                capacity, 5, 10, backpressure, 50);
+    }
+
+    private List<EndpointHit> hits(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> {
+                    EndpointHit hit = new EndpointHit();
+                    hit.setTimestamp(Instant.now());
+                    return hit;
+                })
+                .toList();
+    }
+}
@@ -0,0 +1,72 @@
+package ru.practicum.stats.ingest;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.ewm.dto.GetStatsRequest;
+import ru.practicum.ewm.dto.NewEndpointHitRequestDto;
+import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.stats.service.StatsService;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Пул из двух соединений: запись хитов с новыми ip не должна ждать второго соединения для словаря
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:concurrent-ingest",
+        "spring.datasource.hikari.maximum-pool-size=2",
+        "spring.datasource.hikari.connection-timeout=2000"
+})
+public class SyncHitWriterTests {
+
+    private static final int WRITERS = 16;
+    private static final int BATCHES = 5;
+
+    @Autowired
+    private StatsService statsService;
+
+    @Test
+    void concurrentWritesWithNewIpsShareSmallPool() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS);
+        try {
+            List<Future<?>> writes = new ArrayList<>();
+            for (int writer = 0; writer < WRITERS; writer++) {
+                int w = writer;
+                writes.add(pool.submit(() -> {
+                    for (int batch = 0; batch < BATCHES; batch++) {
+                        int b = batch;
+                        // половина ip новые для каждого пакета, половина общие для всех писателей
+                        statsService.createAll(IntStream.range(0, 10)
+                                .mapToObj(i -> new NewEndpointHitRequestDto("ingest-app", "/ingest",
+                                        i % 2 == 0 ? "10.9." + w + "." + (b * 10 + i) : "10.8.0." + i,
+                                        "2020-01-01 10:00:00"))
+                                .toList());
+                    }
+                    statsService.create(new NewEndpointHitRequestDto("ingest-app", "/ingest", "10.7.0." + w,
+                            "2020-01-01 10:00:00"));
+                }));
+            }
+            for (Future<?> write : writes) {
+                write.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        List<ViewStatsDto> stats = statsService.getStats(new GetStatsRequest(Instant.parse("2020-01-01T00:00:00Z"),
+                Instant.parse("2020-01-02T00:00:00Z"), Set.of("/ingest"), false));
+        assertThat(stats).extracting(ViewStatsDto::getHits).containsExactly((long) WRITERS * (BATCHES * 10 + 1));
+        List<ViewStatsDto> unique = statsService.getStats(new GetStatsRequest(Instant.parse("2020-01-01T00:00:00Z"),
+                Instant.parse("2020-01-02T00:00:00Z"), Set.of("/ingest"), true));
+        assertThat(unique).extracting(ViewStatsDto::getHits).containsExactly((long) WRITERS * (BATCHES * 5 + 1) + 5);
+    }
+}
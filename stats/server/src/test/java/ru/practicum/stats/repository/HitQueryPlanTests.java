@@ -0,0 +1,125 @@
+package ru.practicum.stats.repository;
+
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Планы запросов HitRepository на схеме из миграций.
+// Всегда проверяется H2; секционированная hits в PostgreSQL - если задан -Dexplain.postgres.url
+// (и .user, .password), миграции применяются в отдельной схеме, которая удаляется после тестов
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class HitQueryPlanTests {
+
+    private static final String POSTGRES_SCHEMA = "hit_query_plan_tests";
+    private static final String WINDOW = "timestamp >= timestamp '2024-01-01 10:00:00' " +
+            "and timestamp < timestamp '2024-01-01 12:00:00' ";
+
+    private final List<Database> databases = new ArrayList<>();
+
+    @BeforeAll
+    void migrate() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:hit_query_plan_tests;DB_CLOSE_DELAY=-1");
+        Flyway.configure().dataSource(h2).locations("classpath:db/stats/h2").load().migrate();
+        databases.add(new Database("h2", new JdbcTemplate(h2)));
+
+        String postgresUrl = System.getProperty("explain.postgres.url");
+        if (postgresUrl != null) {
+            SingleConnectionDataSource postgres = new SingleConnectionDataSource(postgresUrl,
+                    System.getProperty("explain.postgres.user", "stats"),
+                    System.getProperty("explain.postgres.password", "stats"), true);
+            Flyway.configure().dataSource(postgres).schemas(POSTGRES_SCHEMA).locations("classpath:db/stats/postgresql")
+                    .load().migrate();
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(postgres);
+            jdbcTemplate.execute("set search_path to " + POSTGRES_SCHEMA);
+            jdbcTemplate.execute("create table hits_p20240101 partition of hits " +
+                    "for values from ('2024-01-01 00:00:00') to ('2024-01-02 00:00:00')");
+            jdbcTemplate.execute("create table hits_p20240102 partition of hits " +
+                    "for values from ('2024-01-02 00:00:00') to ('2024-01-03 00:00:00')");
+            // на пустых таблицах последовательное чтение всегда дешевле, проверяется применимость индекса
+            jdbcTemplate.execute("set enable_seqscan = off");
+            databases.add(new Database("postgresql", jdbcTemplate));
+        }
+    }
+
+    @AfterAll
+    void dropPostgresSchema() {
+        databases.stream()
+                .filter(Database::partitioned)
+                .forEach(database -> database.jdbcTemplate().execute("drop schema " + POSTGRES_SCHEMA + " cascade"));
+    }
+
+    List<Database> databases() {
+        return databases;
+    }
+
+    // HitRepository.countHitsByAppAndUri(from, to, uriIds)
+    @ParameterizedTest
+    @MethodSource("databases")
+    void countByUrisUsesUriTimestampIndex(Database database) {
+        String plan = explain(database, "select app_id, uri_id, count(id) from hits " +
+                "where uri_id in (1, 2) and " + WINDOW + "group by app_id, uri_id order by count(id) desc");
+
+        assertThat(plan).contains("uri_id_timestamp_idx");
+        assertPruned(database, plan);
+    }
+
+    // HitRepository.countHitsByAppAndUriAndUniqueIp(from, to, uriIds)
+    @ParameterizedTest
+    @MethodSource("databases")
+    void uniqueCountByUrisUsesUriTimestampIndex(Database database) {
+        String plan = explain(database, "select app_id, uri_id, count(distinct ip_id) from hits " +
+                "where uri_id in (1, 2) and " + WINDOW + "group by app_id, uri_id");
+
+        assertThat(plan).contains("uri_id_timestamp_idx");
+        assertPruned(database, plan);
+    }
+
+    // HitRepository.countHitsByAppAndUri(from, to) и сканирование краев окна
+    @ParameterizedTest
+    @MethodSource("databases")
+    void countInWindowUsesTimestampIndex(Database database) {
+        String plan = explain(database, "select app_id, uri_id, count(id) from hits " +
+                "where " + WINDOW + "group by app_id, uri_id order by count(id) desc");
+
+        assertThat(plan).contains("timestamp_uri_id_idx");
+        assertPruned(database, plan);
+    }
+
+    // Окно внутри одной секции читает только ее: ни соседние секции, ни секция по умолчанию не сканируются
+    private void assertPruned(Database database, String plan) {
+        if (database.partitioned()) {
+            assertThat(plan).contains("hits_p20240101").doesNotContain("hits_p20240102", "hits_default");
+        }
+    }
+
+    private String explain(Database database, String sql) {
+        return database.jdbcTemplate().queryForList("explain " + sql, String.class).stream()
+                .collect(Collectors.joining("\n"))
+                .toLowerCase(Locale.ROOT);
+    }
+
+    record Database(String name, JdbcTemplate jdbcTemplate) {
+        boolean partitioned() {
+            return name.equals("postgresql");
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package ru.practicum.stats.rollup;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.ewm.dto.NewEndpointHitRequestDto;
+import ru.practicum.stats.dictionary.HitDictionary;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.model.ViewStats;
+import ru.practicum.stats.rollup.RollupRepository.RollupState;
+import ru.practicum.stats.service.StatsService;
+import ru.practicum.stats.store.HitStore;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Перезапуски с выключенными и снова включенными агрегатами моделируются вызовом backfill()
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:rollup-backfill",
+        "stats.rollup.enabled=true",
+        "stats.rollup.backfill-chunk-size=2"
+})
+public class RollupServiceTests {
+
+    private static final String URI = "/rollup";
+
+    @Autowired
+    private RollupService rollupService;
+    @Autowired
+    private RollupRepository rollupRepository;
+    @Autowired
+    private HitStore hitStore;
+    @Autowired
+    private HitDictionary hitDictionary;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private StatsService statsService;
+
+    @Test
+    void reEnabledRollupsAreBackfilledWithHitsWrittenWhileDisabled() {
+        statsService.createAll(IntStream.range(0, 2)
+                .mapToObj(i -> new NewEndpointHitRequestDto("rollup-app", URI, "10.4.0." + i, "2019-05-10 10:00:00"))
+                .toList());
+        assertThat(rolledUpHits()).isEqualTo(2);
+
+        new RollupService(rollupRepository, hitStore, transactionTemplate, hitDictionary, false, 2).backfill();
+        // запись с выключенными агрегатами: слушатели не вызываются
+        transactionTemplate.executeWithoutResult(status -> hitStore.append(hits(5)));
+        assertThat(rolledUpHits()).isEqualTo(2);
+
+        rollupService.backfill();
+        assertThat(rolledUpHits()).isEqualTo(7);
+        assertThat(rollupRepository.findState()).contains(new RollupState(true, hitStore.maxId()));
+
+        rollupService.backfill();
+        assertThat(rolledUpHits()).isEqualTo(7);
+    }
+
+    private long rolledUpHits() {
+        List<ViewStats> stats = rollupService.countHits(Instant.parse("2019-05-01T00:00:00Z"),
+                Instant.parse("2019-05-31T23:59:59Z"), Set.of(URI));
+        return stats.stream().mapToLong(ViewStats::getHits).sum();
+    }
+
+    private List<EndpointHit> hits(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> {
+                    EndpointHit hit = new EndpointHit();
+                    hit.setApp("rollup-app");
+                    hit.setUri(URI);
+                    hit.setIp("10.4.1." + i);
+                    hit.setTimestamp(Instant.parse("2019-05-11T10:00:00Z"));
+                    return hit;
+                })
+                .toList();
+    }
+}
@@ -0,0 +1,173 @@
+package ru.practicum.stats.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats.dictionary.HitDictionary;
+import ru.practicum.stats.model.EndpointHit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+public class SegmentHitStoreTests {
+
+    @TempDir
+    private Path directory;
+    private SegmentHitStore store;
+    private final TransactionTemplate transactionTemplate = new TransactionTemplate(new TestTransactionManager());
+
+    @BeforeEach
+    void open() throws IOException {
+        store = store(0);
+    }
+
+    @AfterEach
+    void close() throws IOException {
+        store.close();
+    }
+
+    @Test
+    void appendWithoutTransactionWritesImmediately() {
+        List<EndpointHit> hits = store.append(hits(6));
+
+        assertThat(hits).extracting(EndpointHit::getId).containsExactly(1L, 2L, 3L, 4L, 5L, 6L);
+        assertThat(scanned()).hasSize(6);
+    }
+
+    @Test
+    void appendInTransactionWritesAfterCommit() {
+        List<EndpointHit> hits = hits(3);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            store.append(hits);
+            assertThat(scanned()).isEmpty();
+            assertThat(hits).extracting(EndpointHit::getId).containsOnlyNulls();
+        });
+
+        assertThat(hits).extracting(EndpointHit::getId).containsExactly(1L, 2L, 3L);
+        assertThat(scanned()).hasSize(3);
+    }
+
+    @Test
+    void appendInRolledBackTransactionWritesNothing() {
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> {
+            store.append(hits(3));
+            throw new IllegalStateException("rollback");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(scanned()).isEmpty();
+    }
+
+    @Test
+    void findAfterReadsAcrossSegmentsInIdOrder() {
+        assertThat(store.maxId()).isZero();
+        store.append(hits(10));
+
+        assertThat(store.maxId()).isEqualTo(10);
+        assertThat(store.findAfter(3, 4)).extracting(EndpointHit::getId).containsExactly(4L, 5L, 6L, 7L);
+        assertThat(store.findAfter(8, 4)).extracting(EndpointHit::getId).containsExactly(9L, 10L);
+        assertThat(store.findAfter(10, 4)).isEmpty();
+    }
+
+    @Test
+    void headerCountsOnlyForcedRecords() throws IOException {
+        store.append(hits(3));
+
+        SegmentHitStore reopened = store(0);
+        assertThat(reopened.maxId()).isZero();
+        reopened.close();
+
+        store.force();
+        reopened = store(0);
+        assertThat(reopened.maxId()).isEqualTo(3);
+        reopened.close();
+    }
+
+    @Test
+    void forcesEveryConfiguredNumberOfRecords() throws IOException {
+        store.close();
+        store = store(2);
+        store.append(hits(3));
+
+        SegmentHitStore reopened = store(0);
+        assertThat(reopened.maxId()).isEqualTo(3);
+        reopened.close();
+    }
+
+    @Test
+    void openTruncatesSegmentAtFirstUnwrittenRecord() throws IOException {
+        store.append(hits(3));
+        store.close();
+        try (FileChannel channel = FileChannel.open(directory.resolve(String.format("%020d%s", 1, Segment.SUFFIX)),
+                StandardOpenOption.WRITE)) {
+            // ids второй записи обнуляются, как у страницы, не дошедшей до диска
+            channel.write(ByteBuffer.allocate(12), 16 + 20 + 8);
+        }
+
+        store = store(0);
+
+        assertThat(store.maxId()).isEqualTo(1);
+        assertThat(store.append(hits(1))).extracting(EndpointHit::getId).containsExactly(2L);
+    }
+
+    private SegmentHitStore store(int forceRecords) throws IOException {
+        SegmentHitStore segmentHitStore = new SegmentHitStore(mock(HitDictionary.class), directory.toString(), 4,
+                forceRecords);
+        segmentHitStore.open();
+        return segmentHitStore;
+    }
+
+    private List<EndpointHit> scanned() {
+        List<EndpointHit> result = new ArrayList<>();
+        store.scan(100, result::addAll);
+        return result;
+    }
+
+    private List<EndpointHit> hits(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> {
+                    EndpointHit hit = new EndpointHit();
+                    hit.setAppId(1);
+                    hit.setUriId(i + 1);
+                    hit.setIpId(i + 1);
+                    hit.setTimestamp(Instant.now());
+                    return hit;
+                })
+                .toList();
+    }
+
+    private static class TestTransactionManager extends AbstractPlatformTransactionManager {
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package ru.practicum.stats.top;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats.exception.ValidationException;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.model.HitCount;
+import ru.practicum.stats.store.HitStore;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class TopHitsIndexTests {
+
+    private static final long RETENTION_HOURS = 24;
+
+    private final HitStore hitStore = mock(HitStore.class);
+    private final TopHitsIndex index = new TopHitsIndex(hitStore,
+            new TransactionTemplate(mock(PlatformTransactionManager.class)), true, 10, RETENTION_HOURS);
+
+    @Test
+    void topCountsHitsInsideRetention() {
+        Instant now = Instant.now();
+        Instant hour = now.truncatedTo(ChronoUnit.HOURS).minus(3, ChronoUnit.HOURS);
+        index.onHits(List.of(hit(1, hour), hit(2, hour), hit(2, hour.plusSeconds(60)), hit(2, hour.plusSeconds(120))));
+
+        List<HitCount> top = index.top(hour, hour.plus(1, ChronoUnit.HOURS).minusSeconds(1), 2);
+
+        assertThat(top).containsExactly(new HitCount(1, 2, 3L), new HitCount(1, 1, 1L));
+    }
+
+    @Test
+    void topRejectsWindowStartingBeforeRetention() {
+        Instant now = Instant.now();
+
+        assertThatThrownBy(() -> index.top(now.minus(RETENTION_HOURS + 2, ChronoUnit.HOURS), now, 10))
+                .isInstanceOf(ValidationException.class);
+        verify(hitStore, never()).aggregate(any(), any(), any(), anyBoolean());
+    }
+
+    @Test
+    void rebuildScansOnlyRetentionWindow() {
+        index.rebuild();
+
+        Instant retentionStart = Instant.now().truncatedTo(ChronoUnit.HOURS).minus(RETENTION_HOURS, ChronoUnit.HOURS);
+        verify(hitStore).scan(eq(retentionStart), anyInt(), any());
+    }
+
+    private EndpointHit hit(int uriId, Instant timestamp) {
+        EndpointHit hit = new EndpointHit();
+        hit.setAppId(1);
+        hit.setUriId(uriId);
+        hit.setTimestamp(timestamp);
+        return hit;
+    }
+}
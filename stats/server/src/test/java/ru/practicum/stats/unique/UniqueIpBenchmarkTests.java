@@ -0,0 +1,111 @@
+package ru.practicum.stats.unique;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats.dictionary.HitDictionary;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.model.HitCount;
+import ru.practicum.stats.model.ViewStats;
+import ru.practicum.stats.store.HitStore;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Сравнение подсчета уникальных ip: count(distinct) по hits против битовых карт и HyperLogLog.
+// Запуск: -Dbenchmark=true, размер данных - -Dbenchmark.hits
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class UniqueIpBenchmarkTests {
+
+    private static final int URIS = 50;
+    private static final int DAYS = 10;
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int ITERATIONS = 20;
+
+    @Autowired
+    private HitStore hitStore;
+    @Autowired
+    private HitDictionary hitDictionary;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final Instant end = Instant.now().truncatedTo(ChronoUnit.DAYS).minusSeconds(1);
+    private final Instant start = end.plusSeconds(1).minus(DAYS, ChronoUnit.DAYS);
+    private Set<String> uris;
+
+    @BeforeAll
+    void loadHits() {
+        int total = Integer.getInteger("benchmark.hits", 500_000);
+        Random random = new Random(42);
+        uris = IntStream.range(0, URIS).mapToObj(i -> "/bench/" + i).collect(Collectors.toSet());
+        List<String> uriList = List.copyOf(uris);
+        List<EndpointHit> chunk = new ArrayList<>();
+        for (int i = 0; i < total; i++) {
+            EndpointHit hit = new EndpointHit();
+            hit.setApp("bench-app");
+            hit.setUri(uriList.get(random.nextInt(URIS)));
+            hit.setIp("10." + random.nextInt(16) + "." + random.nextInt(256) + "." + random.nextInt(256));
+            hit.setTimestamp(start.plusSeconds(random.nextInt(DAYS * 86_400)));
+            chunk.add(hit);
+            if (chunk.size() == 10_000) {
+                hitStore.append(chunk);
+                chunk = new ArrayList<>();
+            }
+        }
+        hitStore.append(chunk);
+    }
+
+    @Test
+    void compareUniqueCounts() {
+        Set<Integer> uriIds = hitDictionary.findUriIds(uris);
+        List<HitCount> exact = measure("count(distinct)", () ->
+                hitStore.aggregate(start, end.plusSeconds(1), uriIds, true));
+
+        UniqueIpIndex bitmap = index("bitmap");
+        List<ViewStats> bitmapCounts = measure("bitmap", () -> bitmap.countUniqueHits(start, end, uris));
+        UniqueIpIndex hll = index("hll");
+        List<ViewStats> hllCounts = measure("hll", () -> hll.countUniqueHits(start, end, uris));
+
+        assertThat(bitmapCounts.stream().mapToLong(ViewStats::getHits).sum())
+                .isEqualTo(exact.stream().mapToLong(HitCount::getHits).sum());
+        assertThat(hllCounts).hasSameSizeAs(exact);
+    }
+
+    private UniqueIpIndex index(String mode) {
+        UniqueIpIndex index = new UniqueIpIndex(hitStore, hitDictionary, transactionTemplate,
+                new SimpleMeterRegistry(), mode, 14, DAYS + 1, 2, Long.MAX_VALUE);
+        long startedAt = System.nanoTime();
+        index.rebuild();
+        System.out.printf("%-16s rebuild %8.1f ms%n", mode, (System.nanoTime() - startedAt) / 1e6);
+        return index;
+    }
+
+    private <T> T measure(String name, Supplier<T> query) {
+        T result = null;
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            result = query.get();
+        }
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            result = query.get();
+        }
+        System.out.printf("%-16s query   %8.3f ms/op%n", name, (System.nanoTime() - startedAt) / 1e6 / ITERATIONS);
+        return result;
+    }
+}
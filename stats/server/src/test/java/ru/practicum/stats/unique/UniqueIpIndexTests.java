@@ -0,0 +1,118 @@
+package ru.practicum.stats.unique;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats.dictionary.HitDictionary;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.model.HitCount;
+import ru.practicum.stats.model.ViewStats;
+import ru.practicum.stats.store.HitStore;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class UniqueIpIndexTests {
+
+    private static final long MAX_BYTES = 16 * 1024;
+
+    private final HitStore hitStore = mock(HitStore.class);
+    private final HitDictionary hitDictionary = mock(HitDictionary.class);
+    private final UniqueIpIndex index = index(Long.MAX_VALUE, new SimpleMeterRegistry());
+
+    @Test
+    void coversOnlyWindowsInsideRetention() {
+        Instant now = Instant.now();
+
+        assertThat(index.covers(now.minus(29, ChronoUnit.DAYS))).isTrue();
+        assertThat(index.covers(now.minus(31, ChronoUnit.DAYS))).isFalse();
+    }
+
+    @Test
+    void ignoresHitsOlderThanRetention() {
+        Instant now = Instant.now();
+        index.onHits(List.of(
+                hit("/old", "10.0.0.1", now.minus(40, ChronoUnit.DAYS)),
+                hit("/new", "10.0.0.1", now.minus(3, ChronoUnit.DAYS)),
+                hit("/new", "10.0.0.2", now.minus(3, ChronoUnit.DAYS)),
+                hit("/new", "10.0.0.2", now.minus(2, ChronoUnit.DAYS))
+        ));
+        index.evict();
+
+        List<ViewStats> stats = index.countUniqueHits(now.minus(45, ChronoUnit.DAYS).truncatedTo(ChronoUnit.DAYS),
+                now, Set.of());
+
+        assertThat(stats).containsExactly(new ViewStats("app", "/new", 2L));
+    }
+
+    @Test
+    void evictsUrisOverMemoryLimitAndCountsThemExactly() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        UniqueIpIndex bounded = index(MAX_BYTES, meterRegistry);
+        Instant now = Instant.now();
+        bounded.onHits(IntStream.range(0, 1000)
+                .mapToObj(i -> hit("/random/" + i, "10.0.0.1", now.minus(3, ChronoUnit.DAYS)))
+                .toList());
+        List<HitCount> counts = List.of(new HitCount(1, 1, 1L));
+        List<ViewStats> exact = List.of(new ViewStats("app", "/random/0", 1L));
+        when(hitStore.aggregate(any(), any(), eq(Set.of()), eq(true))).thenReturn(counts);
+        when(hitDictionary.toViewStats(counts)).thenReturn(exact);
+
+        List<ViewStats> stats = bounded.countUniqueHits(now.minus(10, ChronoUnit.DAYS).truncatedTo(ChronoUnit.DAYS),
+                now, Set.of());
+
+        assertThat(meterRegistry.get("stats.unique.memory").gauge().value()).isLessThanOrEqualTo(MAX_BYTES);
+        assertThat(meterRegistry.get("stats.unique.evictions").functionCounter().count()).isPositive();
+        assertThat(stats).isEqualTo(exact);
+        verify(hitStore).aggregate(any(), any(), eq(Set.of()), eq(true));
+    }
+
+    @Test
+    void readsRecentWindowEdgesByTheHour() {
+        Instant now = Instant.now();
+        Instant start = now.truncatedTo(ChronoUnit.HOURS).minus(30, ChronoUnit.HOURS).plus(30, ChronoUnit.MINUTES);
+        index.onHits(List.of(hit("/new", "10.0.0.1", now.minus(10, ChronoUnit.HOURS))));
+
+        List<ViewStats> stats = index.countUniqueHits(start, now, Set.of());
+
+        assertThat(stats).containsExactly(new ViewStats("app", "/new", 1L));
+        ArgumentCaptor<Instant> from = ArgumentCaptor.forClass(Instant.class);
+        ArgumentCaptor<Instant> to = ArgumentCaptor.forClass(Instant.class);
+        verify(hitStore, atLeastOnce()).scanDistinctIps(from.capture(), to.capture(), any(), anyInt(), any());
+        for (int i = 0; i < from.getAllValues().size(); i++) {
+            assertThat(Duration.between(from.getAllValues().get(i), to.getAllValues().get(i)))
+                    .isLessThanOrEqualTo(Duration.ofHours(1));
+        }
+    }
+
+    private UniqueIpIndex index(long maxBytes, MeterRegistry meterRegistry) {
+        return new UniqueIpIndex(hitStore, hitDictionary,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), meterRegistry, "bitmap", 14, 30,
+                2, maxBytes);
+    }
+
+    private EndpointHit hit(String uri, String ip, Instant timestamp) {
+        EndpointHit hit = new EndpointHit();
+        hit.setApp("app");
+        hit.setUri(uri);
+        hit.setIp(ip);
+        hit.setTimestamp(timestamp);
+        return hit;
+    }
+}